@@ -1,5 +1,11 @@
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Time Complexity: O(1) for initialization
@@ -31,6 +37,24 @@ public class AVL<K extends Comparable<K>, T> {
         return N.getHeight();
     }
 
+    /**
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    private int size(AVLNode<K, T> N) {
+        if (N == null)
+            return 0;
+        return N.getSize();
+    }
+
+    /**
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    private void updateSize(AVLNode<K, T> N) {
+        N.setSize(1 + size(N.getLeft()) + size(N.getRight()));
+    }
+
     /**
      * Time Complexity: O(1)
      * Space Complexity: O(1)
@@ -51,9 +75,11 @@ public class AVL<K extends Comparable<K>, T> {
         x.setRight(y);
         y.setLeft(T2);
 
-        // Update heights
+        // Update heights and subtree sizes
         y.setHeight(max(height(y.getLeft()), height(y.getRight())) + 1);
         x.setHeight(max(height(x.getLeft()), height(x.getRight())) + 1);
+        updateSize(y);
+        updateSize(x);
 
         // Return new root
         return x;
@@ -71,9 +97,11 @@ public class AVL<K extends Comparable<K>, T> {
         y.setLeft(x);
         x.setRight(T2);
 
-        // Update heights
+        // Update heights and subtree sizes
         x.setHeight(max(height(x.getLeft()), height(x.getRight())) + 1);
         y.setHeight(max(height(y.getLeft()), height(y.getRight())) + 1);
+        updateSize(x);
+        updateSize(y);
 
         // Return new root
         return y;
@@ -114,8 +142,9 @@ public class AVL<K extends Comparable<K>, T> {
             return node;
         }
 
-        /* 2. Update height of this ancestor node */
+        /* 2. Update height and subtree size of this ancestor node */
         node.setHeight(1 + max(height(node.getLeft()), height(node.getRight())));
+        updateSize(node);
 
         /* 3. Get the balance factor of this ancestor node to check whether
            this node became unbalanced */
@@ -147,6 +176,80 @@ public class AVL<K extends Comparable<K>, T> {
         return node;
     }
 
+    /**
+     * Removes the node with the given key, rebalancing on the way back up.
+     * Time Complexity: O(log N)
+     * Space Complexity: O(log N) (recursion stack)
+     * @return The data that was stored under key, or null if key was absent.
+     */
+    public T delete(K key) {
+        AVLNode<K, T> target = searchRec(root, key);
+        if (target == null)
+            return null;
+
+        T removed = target.getData();
+        root = deleteRec(root, key);
+        size--;
+        return removed;
+    }
+
+    private AVLNode<K, T> deleteRec(AVLNode<K, T> node, K key) {
+        /* 1. Perform the normal BST delete */
+        if (node == null)
+            return null;
+
+        if (key.compareTo(node.getKey()) < 0)
+            node.setLeft(deleteRec(node.getLeft(), key));
+        else if (key.compareTo(node.getKey()) > 0)
+            node.setRight(deleteRec(node.getRight(), key));
+        else {
+            // Node with zero or one child: splice it out
+            if (node.getLeft() == null)
+                return node.getRight();
+            if (node.getRight() == null)
+                return node.getLeft();
+
+            // Node with two children: take over the in-order successor,
+            // then delete the successor from the right subtree
+            AVLNode<K, T> successor = node.getRight();
+            while (successor.getLeft() != null)
+                successor = successor.getLeft();
+            node.setKey(successor.getKey());
+            node.setData(successor.getData());
+            node.setRight(deleteRec(node.getRight(), successor.getKey()));
+        }
+
+        /* 2. Update height and subtree size of this ancestor node */
+        node.setHeight(1 + max(height(node.getLeft()), height(node.getRight())));
+        updateSize(node);
+
+        /* 3. Rebalance; unlike insert, the child's balance decides the case */
+        int balance = getBalance(node);
+
+        // Left Left Case
+        if (balance > 1 && getBalance(node.getLeft()) >= 0)
+            return rightRotate(node);
+
+        // Left Right Case
+        if (balance > 1 && getBalance(node.getLeft()) < 0) {
+            node.setLeft(leftRotate(node.getLeft()));
+            return rightRotate(node);
+        }
+
+        // Right Right Case
+        if (balance < -1 && getBalance(node.getRight()) <= 0)
+            return leftRotate(node);
+
+        // Right Left Case
+        if (balance < -1 && getBalance(node.getRight()) > 0) {
+            node.setRight(rightRotate(node.getRight()));
+            return leftRotate(node);
+        }
+
+        /* return the (unchanged) node pointer */
+        return node;
+    }
+
     /**
      * Time Complexity: O(log N)
      * Space Complexity: O(log N) (recursion stack)
@@ -168,6 +271,30 @@ public class AVL<K extends Comparable<K>, T> {
         return searchRec(root.getRight(), key);
     }
 
+    /**
+     * Iterative search for optimistic readers that may see the tree in the
+     * middle of an update. It never follows more than maxSteps nodes, so a
+     * pointer cycle seen mid-rotation cannot trap it, and it stops at a node
+     * whose key is not visible yet. A result is only meaningful if the caller
+     * then confirms no writer ran (e.g. StampedLock.validate); in a consistent
+     * tree the walk always finishes within the tree height.
+     * Time Complexity: O(min(log N, maxSteps))
+     * Space Complexity: O(1)
+     */
+    public T searchBounded(K key, int maxSteps) {
+        AVLNode<K, T> node = root;
+        for (int steps = 0; node != null && steps < maxSteps; steps++) {
+            K nodeKey = node.getKey();
+            if (nodeKey == null)
+                return null;
+            int cmp = key.compareTo(nodeKey);
+            if (cmp == 0)
+                return node.getData();
+            node = (cmp < 0) ? node.getLeft() : node.getRight();
+        }
+        return null;
+    }
+
     /**
      * Time Complexity: O(N)
      * Space Complexity: O(N) (result list + recursion stack)
@@ -186,6 +313,49 @@ public class AVL<K extends Comparable<K>, T> {
         }
     }
 
+    /**
+     * Returns the data of all keys in [low, high], in key order.
+     * Time Complexity: O(log N + k) (k = keys in range)
+     * Space Complexity: O(log N + k)
+     */
+    public List<T> range(K low, K high) {
+        List<T> result = new ArrayList<>();
+        rangeRec(root, low, high, result);
+        return result;
+    }
+
+    private void rangeRec(AVLNode<K, T> node, K low, K high, List<T> result) {
+        if (node == null)
+            return;
+        // Only descend into subtrees that can hold keys inside the range
+        if (low.compareTo(node.getKey()) < 0)
+            rangeRec(node.getLeft(), low, high, result);
+        if (low.compareTo(node.getKey()) <= 0 && high.compareTo(node.getKey()) >= 0)
+            result.add(node.getData());
+        if (high.compareTo(node.getKey()) > 0)
+            rangeRec(node.getRight(), low, high, result);
+    }
+
+    /**
+     * Returns the data of the n largest keys, largest first.
+     * Time Complexity: O(log N + n)
+     * Space Complexity: O(log N + n)
+     */
+    public List<T> lastN(int n) {
+        List<T> result = new ArrayList<>();
+        lastNRec(root, n, result);
+        return result;
+    }
+
+    private void lastNRec(AVLNode<K, T> node, int n, List<T> result) {
+        if (node == null || result.size() >= n)
+            return;
+        lastNRec(node.getRight(), n, result);
+        if (result.size() < n)
+            result.add(node.getData());
+        lastNRec(node.getLeft(), n, result);
+    }
+
     /**
      * Time Complexity: O(1)
      * Space Complexity: O(1)
@@ -220,4 +390,161 @@ public class AVL<K extends Comparable<K>, T> {
         if (!hasNext()) return null;
         return traversalList.get(currentIndex++);
     }
+
+    // ===================================================================
+    // Streams: in-order Spliterator that splits on subtree boundaries
+    // ===================================================================
+
+    /**
+     * Returns an in-order Spliterator over the stored data. Splits hand off
+     * whole subtrees, sized from the subtree counts, so both halves are close
+     * to equal. The tree must not be modified while it is being traversed.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public Spliterator<T> spliterator() {
+        return new AVLSpliterator<>(root, AVLNode::getData);
+    }
+
+    /**
+     * Time Complexity: O(1) to create, O(N) to consume
+     * Space Complexity: O(log N)
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Time Complexity: O(1) to create, O(N / p) to consume on p cores
+     * Space Complexity: O(p log N)
+     */
+    public Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Streams the nodes themselves, in key order, for callers that need the keys.
+     * Time Complexity: O(1) to create, O(N) to consume (O(N / p) in parallel)
+     * Space Complexity: O(log N) (O(p log N) in parallel)
+     */
+    public Stream<AVLNode<K, T>> nodeStream(boolean parallel) {
+        return StreamSupport.stream(new AVLSpliterator<K, T, AVLNode<K, T>>(root, node -> node), parallel);
+    }
+
+    /**
+     * Covers an in-order run of the tree as a queue of pieces, each being
+     * either a whole subtree or a single node whose subtrees are covered elsewhere.
+     */
+    private static class AVLSpliterator<K extends Comparable<K>, T, R> implements Spliterator<R> {
+        private final ArrayDeque<Piece<K, T>> pieces;
+        private final Function<AVLNode<K, T>, R> element;
+        private long remaining;
+
+        AVLSpliterator(AVLNode<K, T> root, Function<AVLNode<K, T>, R> element) {
+            this.element = element;
+            this.pieces = new ArrayDeque<>();
+            if (root != null) {
+                pieces.add(new Piece<>(root, true));
+                remaining = root.getSize();
+            }
+        }
+
+        private AVLSpliterator(ArrayDeque<Piece<K, T>> pieces, long remaining, Function<AVLNode<K, T>, R> element) {
+            this.element = element;
+            this.pieces = pieces;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super R> action) {
+            Piece<K, T> piece = pieces.pollFirst();
+            while (piece != null && piece.whole) {
+                expand(piece);
+                piece = pieces.pollFirst();
+            }
+            if (piece == null)
+                return false;
+            remaining--;
+            action.accept(element.apply(piece.node));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super R> action) {
+            Piece<K, T> piece;
+            while ((piece = pieces.pollFirst()) != null) {
+                if (piece.whole)
+                    inOrder(piece.node, action);
+                else
+                    action.accept(element.apply(piece.node));
+            }
+            remaining = 0;
+        }
+
+        private void inOrder(AVLNode<K, T> node, Consumer<? super R> action) {
+            if (node != null) {
+                inOrder(node.getLeft(), action);
+                action.accept(element.apply(node));
+                inOrder(node.getRight(), action);
+            }
+        }
+
+        /**
+         * Splits off the first half (in order) of the remaining nodes.
+         * Time Complexity: O(log N)
+         */
+        @Override
+        public Spliterator<R> trySplit() {
+            if (remaining < 2)
+                return null;
+
+            long half = remaining / 2;
+            ArrayDeque<Piece<K, T>> prefix = new ArrayDeque<>();
+            long prefixSize = 0;
+            while (prefixSize < half) {
+                Piece<K, T> piece = pieces.peekFirst();
+                long pieceSize = piece.whole ? piece.node.getSize() : 1;
+                if (prefixSize + pieceSize <= half) {
+                    prefix.addLast(pieces.pollFirst());
+                    prefixSize += pieceSize;
+                } else {
+                    // Too big to hand over whole: break it at its root
+                    expand(pieces.pollFirst());
+                }
+            }
+
+            remaining -= prefixSize;
+            return new AVLSpliterator<>(prefix, prefixSize, element);
+        }
+
+        // Replaces a whole subtree at the front by its left subtree, root and right subtree
+        private void expand(Piece<K, T> piece) {
+            AVLNode<K, T> node = piece.node;
+            if (node.getRight() != null)
+                pieces.addFirst(new Piece<>(node.getRight(), true));
+            pieces.addFirst(new Piece<>(node, false));
+            if (node.getLeft() != null)
+                pieces.addFirst(new Piece<>(node.getLeft(), true));
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED;
+        }
+    }
+
+    private static class Piece<K extends Comparable<K>, T> {
+        private final AVLNode<K, T> node;
+        private final boolean whole;
+
+        Piece(AVLNode<K, T> node, boolean whole) {
+            this.node = node;
+            this.whole = whole;
+        }
+    }
 }
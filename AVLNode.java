@@ -8,6 +8,8 @@ public class AVLNode<K extends Comparable<K>, T> {
     private AVLNode<K, T> left;
     private AVLNode<K, T> right;
     private int height;
+    // Number of nodes in the subtree rooted here (used for balanced splits)
+    private int size;
 
     /**
      * Time Complexity: O(1)
@@ -19,6 +21,7 @@ public class AVLNode<K extends Comparable<K>, T> {
         this.left = null;
         this.right = null;
         this.height = 1;
+        this.size = 1;
     }
 
     /**
@@ -100,4 +103,20 @@ public class AVLNode<K extends Comparable<K>, T> {
     public void setHeight(int height) {
         this.height = height;
     }
+
+    /**
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public void setSize(int size) {
+        this.size = size;
+    }
 }
@@ -0,0 +1,239 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Sparse product-by-product co-occurrence ("bought together") matrix.
+ * Each row is keyed by productId in an AVL and holds a primitive map of
+ * partnerId -> number of orders that contain both products.
+ *
+ * Time Complexity: O(1) for initialization
+ * Space Complexity: O(B + E) (B = basket entries, E = distinct co-purchased pairs)
+ */
+public class CoPurchaseIndex {
+    // Below this many orders a partition is counted on the current thread
+    private static final int PARALLEL_THRESHOLD = 1024;
+
+    private AVL<Integer, CountMap> rows;
+    // orderId -> distinct, sorted product ids of that order
+    private AVL<Integer, int[]> baskets;
+
+    /**
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public CoPurchaseIndex() {
+        this.rows = new AVL<>();
+        this.baskets = new AVL<>();
+    }
+
+    /**
+     * Records an order's products without touching the matrix.
+     * Call build() once all orders are staged.
+     * Time Complexity: O(m log m + log O) (m = products in the order)
+     * Space Complexity: O(m)
+     */
+    public void stage(int orderId, int[] productIds) {
+        baskets.insert(orderId, distinct(productIds));
+    }
+
+    /**
+     * Rebuilds the whole matrix from the staged orders. Order partitions are
+     * counted in parallel, each into its own primitive pair map, and the
+     * partial maps are merged as the fork-join tasks complete.
+     * Time Complexity: O(S / p + E log P) (S = sum of m^2 over orders, p = cores)
+     * Space Complexity: O(E)
+     */
+    public void build() {
+        List<int[]> all = baskets.inOrderTraversal();
+        CountMap pairs = ForkJoinPool.commonPool().invoke(new PairCountTask(all, 0, all.size()));
+
+        rows = new AVL<>();
+        for (int i = 0; i < pairs.capacity(); i++) {
+            int count = pairs.valueAt(i);
+            if (count == 0) continue;
+            long pair = pairs.keyAt(i);
+            int a = (int) (pair >>> 32);
+            int b = (int) pair;
+            row(a).add(b, count);
+            row(b).add(a, count);
+        }
+    }
+
+    /**
+     * Adds a newly placed order to the matrix incrementally.
+     * Time Complexity: O(m^2 log P)
+     * Space Complexity: O(m)
+     */
+    public void addOrder(int orderId, int[] productIds) {
+        int[] basket = distinct(productIds);
+        baskets.insert(orderId, basket);
+        for (int i = 0; i < basket.length; i++) {
+            CountMap row = row(basket[i]);
+            for (int j = 0; j < basket.length; j++) {
+                if (i != j) row.add(basket[j], 1);
+            }
+        }
+    }
+
+    /**
+     * Takes a cancelled order's pairs back out of the matrix.
+     * Pairs with a product that was already removed are skipped.
+     * Time Complexity: O(log O + m^2 log P)
+     * Space Complexity: O(m)
+     */
+    public void removeOrder(int orderId) {
+        int[] basket = baskets.delete(orderId);
+        if (basket == null) return;
+
+        CountMap[] basketRows = new CountMap[basket.length];
+        for (int i = 0; i < basket.length; i++) {
+            basketRows[i] = rows.search(basket[i]);
+        }
+        for (int i = 0; i < basket.length; i++) {
+            if (basketRows[i] == null) continue;
+            for (int j = 0; j < basket.length; j++) {
+                if (i != j && basketRows[j] != null) basketRows[i].add(basket[j], -1);
+            }
+        }
+    }
+
+    /**
+     * Drops a product's row and its column from the matrix.
+     * Orders that contained it keep their baskets as history.
+     * Time Complexity: O(d log P) (d = distinct partners of the product)
+     * Space Complexity: O(1)
+     */
+    public void removeProduct(int productId) {
+        CountMap row = rows.delete(productId);
+        if (row == null) return;
+
+        for (int i = 0; i < row.capacity(); i++) {
+            if (row.valueAt(i) == 0) continue;
+            CountMap partnerRow = rows.search((int) row.keyAt(i));
+            if (partnerRow != null) partnerRow.remove(productId);
+        }
+    }
+
+    /**
+     * Returns up to k products most often bought together with productId,
+     * highest count first (ties broken by lower productId).
+     * Time Complexity: O(log P + d * k) (d = distinct partners of the product)
+     * Space Complexity: O(k)
+     */
+    public int[] alsoBought(int productId, int k) {
+        CountMap row = rows.search(productId);
+        if (row == null || k <= 0) return new int[0];
+
+        int[] topIds = new int[k];
+        int[] topCounts = new int[k];
+        int found = 0;
+
+        for (int i = 0; i < row.capacity(); i++) {
+            int count = row.valueAt(i);
+            if (count == 0) continue;
+            int id = (int) row.keyAt(i);
+
+            // Find the insertion slot, keeping the arrays ordered best-first
+            int pos = found;
+            while (pos > 0 && (count > topCounts[pos - 1]
+                    || (count == topCounts[pos - 1] && id < topIds[pos - 1]))) {
+                pos--;
+            }
+            if (pos >= k) continue;
+
+            int last = (found < k) ? found : k - 1;
+            for (int j = last; j > pos; j--) {
+                topIds[j] = topIds[j - 1];
+                topCounts[j] = topCounts[j - 1];
+            }
+            topIds[pos] = id;
+            topCounts[pos] = count;
+            if (found < k) found++;
+        }
+        return Arrays.copyOf(topIds, found);
+    }
+
+    /**
+     * Number of orders containing both products.
+     * Time Complexity: O(log P)
+     * Space Complexity: O(1)
+     */
+    public int countTogether(int productA, int productB) {
+        CountMap row = rows.search(productA);
+        return (row == null) ? 0 : row.get(productB);
+    }
+
+    private CountMap row(int productId) {
+        CountMap row = rows.search(productId);
+        if (row == null) {
+            row = new CountMap(8);
+            rows.insert(productId, row);
+        }
+        return row;
+    }
+
+    private static int[] distinct(int[] productIds) {
+        int[] sorted = Arrays.copyOf(productIds, productIds.length);
+        Arrays.sort(sorted);
+        int n = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) sorted[n++] = sorted[i];
+        }
+        return Arrays.copyOf(sorted, n);
+    }
+
+    /**
+     * Counts unordered pairs (a < b) over a slice of the order list.
+     */
+    private static class PairCountTask extends RecursiveTask<CountMap> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<int[]> baskets;
+        private final int from;
+        private final int to;
+
+        PairCountTask(List<int[]> baskets, int from, int to) {
+            this.baskets = baskets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected CountMap compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                CountMap pairs = new CountMap(64);
+                for (int i = from; i < to; i++) {
+                    int[] basket = baskets.get(i);
+                    // Baskets are sorted, so basket[x] < basket[y] for x < y
+                    for (int x = 0; x < basket.length; x++) {
+                        long high = ((long) basket[x]) << 32;
+                        for (int y = x + 1; y < basket.length; y++) {
+                            pairs.add(high | (basket[y] & 0xFFFFFFFFL), 1);
+                        }
+                    }
+                }
+                return pairs;
+            }
+
+            int mid = (from + to) >>> 1;
+            PairCountTask left = new PairCountTask(baskets, from, mid);
+            left.fork();
+            CountMap right = new PairCountTask(baskets, mid, to).compute();
+            CountMap merged = left.join();
+
+            // Fold the smaller map into the larger one
+            if (merged.size() < right.size()) {
+                CountMap tmp = merged;
+                merged = right;
+                right = tmp;
+            }
+            for (int i = 0; i < right.capacity(); i++) {
+                int count = right.valueAt(i);
+                if (count != 0) merged.add(right.keyAt(i), count);
+            }
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,423 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Collectors;
+
+/**
+ * Thread-safe facade over the customer, product and order collections for
+ * many concurrent readers without a global lock.
+ *
+ * Each collection has its own StampedLock. Id lookups first try an optimistic
+ * read (a bounded AVL walk confirmed by validate(), so no lock is taken when
+ * nobody is writing) and fall back to a shared read lock. Scans take the read
+ * lock, and inserts take the write lock of their collection only.
+ * A product's reviews are guarded by one of REVIEW_STRIPES striped locks chosen
+ * by productId, so review writes on different products rarely contend and
+ * never block lookups.
+ *
+ * Locks are never held two at a time, except a review stripe taken inside the
+ * products read lock (products before stripes), so there is no lock-order cycle.
+ * Returned domain objects are shared: change them only through this facade.
+ *
+ * Time Complexity: O(1) for initialization
+ * Space Complexity: O(C + P + O + R)
+ */
+public class ConcurrentECommerceService {
+    private static final int REVIEW_STRIPE_BITS = 6;
+    private static final int REVIEW_STRIPES = 1 << REVIEW_STRIPE_BITS;
+    // Above the height of any AVL tree that fits in memory (~1.44 log2 N)
+    private static final int MAX_OPTIMISTIC_STEPS = 64;
+
+    private final AVL<Integer, Customers> customers;
+    private final AVL<Integer, Products> products;
+    private final AVL<Integer, Orders> orders;
+    private final StampedLock customersLock = new StampedLock();
+    private final StampedLock productsLock = new StampedLock();
+    private final StampedLock ordersLock = new StampedLock();
+    private final StampedLock[] reviewLocks;
+
+    private final AtomicInteger nextOrderId;
+
+    /**
+     * Starts with empty collections.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public ConcurrentECommerceService() {
+        this(new AVL<>(), new AVL<>(), new AVL<>(), 1);
+    }
+
+    private ConcurrentECommerceService(AVL<Integer, Customers> customers, AVL<Integer, Products> products,
+                                       AVL<Integer, Orders> orders, int nextOrderId) {
+        this.customers = customers;
+        this.products = products;
+        this.orders = orders;
+        this.nextOrderId = new AtomicInteger(nextOrderId);
+        this.reviewLocks = new StampedLock[REVIEW_STRIPES];
+        for (int i = 0; i < REVIEW_STRIPES; i++) {
+            reviewLocks[i] = new StampedLock();
+        }
+    }
+
+    /**
+     * Takes over the master lists of a loaded service. The service must not be
+     * used afterwards: its own indexes are not updated through the facade.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     * @throws IllegalStateException if the service is still following its CSV
+     *         files or has an order pipeline running; both write the lists
+     *         without the facade's locks.
+     */
+    public static ConcurrentECommerceService fromService(ECommerceService loaded) {
+        loaded.handOver();
+        return new ConcurrentECommerceService(loaded.customerTree(), loaded.productTree(), loaded.orderTree(),
+                                              loaded.peekNextOrderId());
+    }
+
+    // ===================================================================
+    // LOOKUPS (optimistic)
+    // ===================================================================
+
+    /**
+     * Time Complexity: O(log C)
+     * Space Complexity: O(1)
+     */
+    public Customers getCustomer(int customerId) {
+        return lookup(customers, customersLock, customerId);
+    }
+
+    /**
+     * Time Complexity: O(log P)
+     * Space Complexity: O(1)
+     */
+    public Products getProduct(int productId) {
+        return lookup(products, productsLock, productId);
+    }
+
+    /**
+     * Time Complexity: O(log O)
+     * Space Complexity: O(1)
+     */
+    public Orders getOrder(int orderId) {
+        return lookup(orders, ordersLock, orderId);
+    }
+
+    public int getCustomerCount() { return size(customers, customersLock); }
+    public int getProductCount() { return size(products, productsLock); }
+    public int getOrderCount() { return size(orders, ordersLock); }
+
+    // ===================================================================
+    // REVIEWS (striped by product)
+    // ===================================================================
+
+    /**
+     * Time Complexity: O(log P) plus Products.getAverageRating()
+     * Space Complexity: O(1)
+     * @return 0.0 if the product does not exist or has no reviews.
+     */
+    public double getAverageRating(int productId) {
+        Products product = getProduct(productId);
+        if (product == null) return 0.0;
+
+        StampedLock lock = reviewLock(productId);
+        long stamp = lock.readLock();
+        try {
+            return product.getAverageRating();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Snapshot of the product's reviews in reviewId order.
+     * Time Complexity: O(log P + R)
+     * Space Complexity: O(R)
+     */
+    public List<Reviews> getReviews(int productId) {
+        Products product = getProduct(productId);
+        if (product == null) return new ArrayList<>();
+
+        StampedLock lock = reviewLock(productId);
+        long stamp = lock.readLock();
+        try {
+            return product.getReviews().inOrderTraversal();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Time Complexity: O(log P + log R)
+     * Space Complexity: O(1)
+     * @return false if the product does not exist or already has this reviewId.
+     */
+    public boolean addReview(int reviewId, int productId, int customerId, int rating, String comment) {
+        Products product = getProduct(productId);
+        if (product == null) return false;
+
+        StampedLock lock = reviewLock(productId);
+        long stamp = lock.writeLock();
+        try {
+            if (product.getReviews().search(reviewId) != null) return false;
+            product.addReview(reviewId, customerId, rating, comment);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // ===================================================================
+    // INSERTS & UPDATES
+    // ===================================================================
+
+    /**
+     * Time Complexity: O(log C)
+     * Space Complexity: O(log C) (recursion stack)
+     * @return false if the id is taken.
+     */
+    public boolean addCustomer(int customerId, String name, String email) {
+        long stamp = customersLock.writeLock();
+        try {
+            if (customers.search(customerId) != null) return false;
+            customers.insert(customerId, new Customers(customerId, name, email));
+            return true;
+        } finally {
+            customersLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Time Complexity: O(log P)
+     * Space Complexity: O(log P) (recursion stack)
+     * @return false if the id is taken.
+     */
+    public boolean addProduct(int productId, String name, double price, int stock) {
+        long stamp = productsLock.writeLock();
+        try {
+            if (products.search(productId) != null) return false;
+            products.insert(productId, new Products(productId, name, price, stock));
+            return true;
+        } finally {
+            productsLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Places a PENDING order with the next free orderId. The customer and
+     * products are looked up optimistically; the order is built before any
+     * lock is taken, then inserted and attached to its customer one lock at a time.
+     * Time Complexity: O(log C + m log P + log O) (m = products in the order)
+     * Space Complexity: O(m)
+     * @throws IllegalArgumentException if the customer or a product does not exist.
+     */
+    public Orders placeOrder(int customerId, String orderDate, int... productIds) {
+        Customers customer = getCustomer(customerId);
+        if (customer == null) {
+            throw new IllegalArgumentException("Customer " + customerId + " not found.");
+        }
+        if (productIds.length == 0) {
+            throw new IllegalArgumentException("An order needs at least one product.");
+        }
+        Products[] basket = new Products[productIds.length];
+        for (int i = 0; i < productIds.length; i++) {
+            basket[i] = getProduct(productIds[i]);
+            if (basket[i] == null) {
+                throw new IllegalArgumentException("Product " + productIds[i] + " not found.");
+            }
+        }
+
+        int orderId = nextOrderId.getAndIncrement();
+        Orders order = new Orders(orderId, customerId, orderDate);
+        order.updateStatus(Orders.OrderStatus.PENDING);
+        for (Products product : basket) {
+            order.addProduct(product);
+        }
+
+        long stamp = ordersLock.writeLock();
+        try {
+            orders.insert(orderId, order);
+        } finally {
+            ordersLock.unlockWrite(stamp);
+        }
+        stamp = customersLock.writeLock();
+        try {
+            customer.addOrder(order);
+        } finally {
+            customersLock.unlockWrite(stamp);
+        }
+        return order;
+    }
+
+    /**
+     * Time Complexity: O(log O)
+     * Space Complexity: O(log O) (recursion stack)
+     * @return false if no such order exists.
+     */
+    public boolean updateOrderStatus(int orderId, Orders.OrderStatus status) {
+        long stamp = ordersLock.writeLock();
+        try {
+            Orders order = orders.search(orderId);
+            if (order == null) return false;
+            order.updateStatus(status);
+            return true;
+        } finally {
+            ordersLock.unlockWrite(stamp);
+        }
+    }
+
+    // ===================================================================
+    // SCANS (shared read locks)
+    // ===================================================================
+
+    /**
+     * Orders dated within [startDate, endDate], in orderId order.
+     * Time Complexity: O(O)
+     * Space Complexity: O(k) (k = matching orders)
+     */
+    public List<Orders> findOrdersBetweenDates(Date startDate, Date endDate) {
+        long stamp = ordersLock.readLock();
+        try {
+            return orders.stream()
+                    .filter(order -> {
+                        Date orderDate = order.getOrderDate();
+                        return orderDate.compareTo(startDate) >= 0 && orderDate.compareTo(endDate) <= 0;
+                    })
+                    .collect(Collectors.toList());
+        } finally {
+            ordersLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Products rated above 4.0 on average that both customers reviewed, in productId order.
+     * Each product's reviews are read under its review stripe.
+     * Time Complexity: O(P * R) (R = reviews per product)
+     * Space Complexity: O(k) (k = matching products)
+     */
+    public List<Products> findCommonProducts(int custId1, int custId2) {
+        long stamp = productsLock.readLock();
+        try {
+            List<Products> result = new ArrayList<>();
+            products.nodeStream(false).forEach(node -> {
+                StampedLock lock = reviewLock(node.getKey());
+                long reviewStamp = lock.readLock();
+                try {
+                    if (isCommonHighlyRated(node.getData(), custId1, custId2)) result.add(node.getData());
+                } finally {
+                    lock.unlockRead(reviewStamp);
+                }
+            });
+            return result;
+        } finally {
+            productsLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * All customers sorted by name, ignoring case. The list is copied under the
+     * read lock and sorted after it is released.
+     * Time Complexity: O(C log C)
+     * Space Complexity: O(C)
+     */
+    public List<Customers> findCustomersSortedByName() {
+        List<Customers> result;
+        long stamp = customersLock.readLock();
+        try {
+            result = customers.inOrderTraversal();
+        } finally {
+            customersLock.unlockRead(stamp);
+        }
+        result.sort((c1, c2) -> c1.getName().compareToIgnoreCase(c2.getName()));
+        return result;
+    }
+
+    /**
+     * Products priced within [minPrice, maxPrice], in productId order.
+     * Time Complexity: O(P)
+     * Space Complexity: O(k) (k = matching products)
+     */
+    public List<Products> findProductsInPriceRange(double minPrice, double maxPrice) {
+        long stamp = productsLock.readLock();
+        try {
+            return products.stream()
+                    .filter(p -> p.getPrice() >= minPrice && p.getPrice() <= maxPrice)
+                    .collect(Collectors.toList());
+        } finally {
+            productsLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * The k products with the highest average rating (ties keep the lower productId).
+     * Each product's rating is read under its review stripe.
+     * Time Complexity: O(P * k)
+     * Space Complexity: O(k)
+     */
+    public List<Products> findTopProductsByRating(int k) {
+        long stamp = productsLock.readLock();
+        try {
+            ECommerceService.TopRated top = new ECommerceService.TopRated(k);
+            products.nodeStream(false).forEach(node -> {
+                StampedLock lock = reviewLock(node.getKey());
+                long reviewStamp = lock.readLock();
+                try {
+                    top.offer(node.getData(), node.getData().getAverageRating());
+                } finally {
+                    lock.unlockRead(reviewStamp);
+                }
+            });
+            return top.toList();
+        } finally {
+            productsLock.unlockRead(stamp);
+        }
+    }
+
+    // ===================================================================
+    // HELPERS
+    // ===================================================================
+
+    private static <T> T lookup(AVL<Integer, T> tree, StampedLock lock, int key) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            T found = tree.searchBounded(key, MAX_OPTIMISTIC_STEPS);
+            if (lock.validate(stamp)) return found;
+        }
+        // A writer got in: retry under the read lock
+        stamp = lock.readLock();
+        try {
+            return tree.search(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Caller holds the product's review stripe
+    private static boolean isCommonHighlyRated(Products product, int custId1, int custId2) {
+        if (product.getAverageRating() <= 4.0) return false;
+        boolean reviewed1 = false;
+        boolean reviewed2 = false;
+        for (Reviews review : product.getReviews().inOrderTraversal()) {
+            if (review.getCustomerId() == custId1) reviewed1 = true;
+            if (review.getCustomerId() == custId2) reviewed2 = true;
+        }
+        return reviewed1 && reviewed2;
+    }
+
+    private static int size(AVL<Integer, ?> tree, StampedLock lock) {
+        long stamp = lock.tryOptimisticRead();
+        int size = tree.getSize();
+        if (lock.validate(stamp)) return size;
+        stamp = lock.readLock();
+        try {
+            return tree.getSize();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Fibonacci hashing spreads consecutive productIds over the stripes
+    private StampedLock reviewLock(int productId) {
+        return reviewLocks[(productId * 0x9E3779B9) >>> (32 - REVIEW_STRIPE_BITS)];
+    }
+}
@@ -0,0 +1,115 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of ConcurrentECommerceService at mixed read/write ratios, from
+ * 1 to 16 threads, against the same operations behind one global lock (the
+ * way ECommerceService serializes everything through synchronized).
+ * Reads are id lookups and rating reads; writes are new reviews and orders.
+ *
+ * Usage: java ConcurrentServiceBenchmark [millisPerRun]
+ */
+public class ConcurrentServiceBenchmark {
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16};
+    private static final int[] READ_PERCENTS = {50, 90, 99};
+    private static final int CUSTOMERS = 10_000;
+    private static final int PRODUCTS = 10_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        long millis = (args.length > 0) ? Long.parseLong(args[0]) : 1000;
+
+        System.out.println("Cores: " + Runtime.getRuntime().availableProcessors() + ", ms per run: " + millis);
+        System.out.println(String.format("%7s %7s %16s %16s %8s", "reads%", "threads",
+                                         "striped ops/s", "global ops/s", "speedup"));
+
+        // Warm-up so the JIT has compiled the hot paths before measuring
+        run(4, 90, millis, false);
+        run(4, 90, millis, true);
+
+        for (int readPercent : READ_PERCENTS) {
+            for (int threads : THREAD_COUNTS) {
+                double striped = run(threads, readPercent, millis, false);
+                double global = run(threads, readPercent, millis, true);
+                System.out.println(String.format("%7d %7d %16.0f %16.0f %7.2fx", readPercent, threads,
+                                                 striped, global, striped / global));
+            }
+        }
+    }
+
+    // Operations per second for one configuration, on a freshly seeded service
+    private static double run(int threadCount, int readPercent, long millis, boolean globalLock)
+            throws InterruptedException {
+        ConcurrentECommerceService service = seed();
+        Object lock = new Object();
+        AtomicLong operations = new AtomicLong();
+        AtomicInteger nextReviewId = new AtomicInteger(1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        long[] deadline = new long[1];
+
+        for (int t = 0; t < threadCount; t++) {
+            final int seed = t;
+            Thread worker = new Thread(() -> {
+                Random random = new Random(seed);
+                long done = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (System.nanoTime() < deadline[0]) {
+                    if (globalLock) {
+                        synchronized (lock) {
+                            operate(service, random, readPercent, nextReviewId);
+                        }
+                    } else {
+                        operate(service, random, readPercent, nextReviewId);
+                    }
+                    done++;
+                }
+                operations.addAndGet(done);
+            });
+            threads.add(worker);
+            worker.start();
+        }
+
+        long begin = System.nanoTime();
+        deadline[0] = begin + millis * 1_000_000L;
+        start.countDown();
+        for (Thread worker : threads) worker.join();
+        long elapsed = System.nanoTime() - begin;
+        return operations.get() / (elapsed / 1e9);
+    }
+
+    private static void operate(ConcurrentECommerceService service, Random random, int readPercent,
+                                AtomicInteger nextReviewId) {
+        int productId = 1 + random.nextInt(PRODUCTS);
+        if (random.nextInt(100) < readPercent) {
+            switch (random.nextInt(4)) {
+                case 0: service.getCustomer(1 + random.nextInt(CUSTOMERS)); break;
+                case 1: service.getProduct(productId); break;
+                case 2: service.getOrder(1 + random.nextInt(Math.max(1, service.getOrderCount()))); break;
+                default: service.getAverageRating(productId); break;
+            }
+        } else if (random.nextBoolean()) {
+            service.addReview(nextReviewId.getAndIncrement(), productId, 1, 1 + random.nextInt(5), "ok");
+        } else {
+            service.placeOrder(1 + random.nextInt(CUSTOMERS), "2025-06-15", productId);
+        }
+    }
+
+    private static ConcurrentECommerceService seed() {
+        ConcurrentECommerceService service = new ConcurrentECommerceService();
+        for (int id = 1; id <= CUSTOMERS; id++) {
+            service.addCustomer(id, "Customer " + id, "c" + id + "@example.com");
+        }
+        for (int id = 1; id <= PRODUCTS; id++) {
+            service.addProduct(id, "Product " + id, 1 + id % 100, 10);
+        }
+        return service;
+    }
+}
@@ -0,0 +1,186 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency stress test for ConcurrentECommerceService.
+ * Writer threads keep adding customers, products, reviews and orders while
+ * reader threads hammer the optimistic lookups and the scans. Readers check
+ * that everything already published is found and that scans never go
+ * backwards; at the end every write is checked to be present exactly once.
+ * Exits with status 1 on any failure.
+ *
+ * Usage: java ConcurrentServiceStressTest [seconds] [readers] [writers]
+ */
+public class ConcurrentServiceStressTest {
+    private static final int SEED_CUSTOMERS = 1_000;
+    private static final int SEED_PRODUCTS = 1_000;
+    // Each writer adds customers and products in its own id block above the seed
+    private static final int WRITER_ID_BLOCK = 10_000_000;
+    private static final String ORDER_DATE = "2025-06-15";
+
+    public static void main(String[] args) throws InterruptedException {
+        int seconds = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+        int readers = (args.length > 1) ? Integer.parseInt(args[1]) : 8;
+        int writers = (args.length > 2) ? Integer.parseInt(args[2]) : 4;
+
+        ConcurrentECommerceService service = new ConcurrentECommerceService();
+        for (int id = 1; id <= SEED_CUSTOMERS; id++) {
+            service.addCustomer(id, "Customer " + id, "c" + id + "@example.com");
+        }
+        for (int id = 1; id <= SEED_PRODUCTS; id++) {
+            service.addProduct(id, "Product " + id, 1 + id % 100, 10);
+        }
+
+        AtomicLong failures = new AtomicLong();
+        AtomicLong reads = new AtomicLong();
+        AtomicIntegerArray reviewsAdded = new AtomicIntegerArray(SEED_PRODUCTS + 1);
+        AtomicInteger ordersPlaced = new AtomicInteger();
+        AtomicInteger customersAdded = new AtomicInteger();
+        AtomicInteger productsAdded = new AtomicInteger();
+        // Highest id each writer has finished inserting (0 = none yet)
+        AtomicIntegerArray publishedCustomer = new AtomicIntegerArray(writers);
+        AtomicIntegerArray publishedProduct = new AtomicIntegerArray(writers);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            final int writer = w;
+            threads.add(new Thread(() -> {
+                Random random = new Random(writer);
+                int base = (writer + 1) * WRITER_ID_BLOCK;
+                int nextReviewId = base;
+                for (int i = 1; System.nanoTime() < deadline; i++) {
+                    switch (i % 4) {
+                        case 0:
+                            if (!service.addCustomer(base + i, "New " + i, "n" + i + "@example.com")) {
+                                fail(failures, "duplicate customer id " + (base + i));
+                            }
+                            customersAdded.incrementAndGet();
+                            publishedCustomer.set(writer, base + i);
+                            break;
+                        case 1:
+                            if (!service.addProduct(base + i, "New " + i, 5.0, 1)) {
+                                fail(failures, "duplicate product id " + (base + i));
+                            }
+                            productsAdded.incrementAndGet();
+                            publishedProduct.set(writer, base + i);
+                            break;
+                        case 2: {
+                            int productId = 1 + random.nextInt(SEED_PRODUCTS);
+                            if (service.addReview(nextReviewId++, productId, 1, 1 + random.nextInt(5), "ok")) {
+                                reviewsAdded.incrementAndGet(productId);
+                            } else {
+                                fail(failures, "review rejected for product " + productId);
+                            }
+                            break;
+                        }
+                        default: {
+                            int customerId = 1 + random.nextInt(SEED_CUSTOMERS);
+                            service.placeOrder(customerId, ORDER_DATE, 1 + random.nextInt(SEED_PRODUCTS),
+                                               1 + random.nextInt(SEED_PRODUCTS));
+                            ordersPlaced.incrementAndGet();
+                            break;
+                        }
+                    }
+                }
+            }, "stress-writer-" + w));
+        }
+
+        for (int r = 0; r < readers; r++) {
+            final int reader = r;
+            threads.add(new Thread(() -> {
+                Random random = new Random(1000 + reader);
+                Date start = Date.fromString("2025-01-01");
+                Date end = Date.fromString("2025-12-31");
+                int lastOrderCount = 0;
+                long done = 0;
+                while (System.nanoTime() < deadline) {
+                    if (service.getCustomer(1 + random.nextInt(SEED_CUSTOMERS)) == null) {
+                        fail(failures, "seeded customer missing");
+                    }
+                    if (service.getProduct(1 + random.nextInt(SEED_PRODUCTS)) == null) {
+                        fail(failures, "seeded product missing");
+                    }
+
+                    int writer = random.nextInt(writers);
+                    int customerId = publishedCustomer.get(writer);
+                    if (customerId != 0 && service.getCustomer(customerId) == null) {
+                        fail(failures, "published customer " + customerId + " missing");
+                    }
+                    int productId = publishedProduct.get(writer);
+                    if (productId != 0 && service.getProduct(productId) == null) {
+                        fail(failures, "published product " + productId + " missing");
+                    }
+
+                    double rating = service.getAverageRating(1 + random.nextInt(SEED_PRODUCTS));
+                    if (rating != 0.0 && (rating < 1.0 || rating > 5.0)) {
+                        fail(failures, "rating out of range: " + rating);
+                    }
+
+                    if (done % 256 == 0) {
+                        int orderCount = service.findOrdersBetweenDates(start, end).size();
+                        if (orderCount < lastOrderCount) {
+                            fail(failures, "order scan went backwards: " + orderCount + " < " + lastOrderCount);
+                        }
+                        lastOrderCount = orderCount;
+                        if (service.findTopProductsByRating(3).size() > 3) {
+                            fail(failures, "top-3 returned more than 3 products");
+                        }
+                    }
+                    done++;
+                }
+                reads.addAndGet(done);
+            }, "stress-reader-" + r));
+        }
+
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+
+        // Final consistency: every write is visible exactly once.
+        // Writers used ids base + i, customers for i % 4 == 0 and products for i % 4 == 1.
+        for (int w = 0; w < writers; w++) {
+            int base = (w + 1) * WRITER_ID_BLOCK;
+            for (int id = base + 4; id <= publishedCustomer.get(w); id += 4) {
+                if (service.getCustomer(id) == null) fail(failures, "customer " + id + " lost");
+            }
+            for (int id = base + 1; id <= publishedProduct.get(w); id += 4) {
+                if (service.getProduct(id) == null) fail(failures, "product " + id + " lost");
+            }
+        }
+        check(failures, service.getCustomerCount() == SEED_CUSTOMERS + customersAdded.get(), "customer count");
+        check(failures, service.getProductCount() == SEED_PRODUCTS + productsAdded.get(), "product count");
+        check(failures, service.getOrderCount() == ordersPlaced.get(), "order count");
+        for (int id = 1; id <= ordersPlaced.get(); id++) {
+            if (service.getOrder(id) == null) fail(failures, "order " + id + " lost");
+        }
+        for (int id = 1; id <= SEED_PRODUCTS; id++) {
+            if (service.getReviews(id).size() != reviewsAdded.get(id)) {
+                fail(failures, "product " + id + " has " + service.getReviews(id).size()
+                               + " reviews, expected " + reviewsAdded.get(id));
+            }
+        }
+
+        System.out.println("Readers: " + readers + ", writers: " + writers + ", seconds: " + seconds);
+        System.out.println("Reads: " + reads.get() + ", orders placed: " + ordersPlaced.get()
+                           + ", customers added: " + customersAdded.get() + ", products added: " + productsAdded.get());
+        if (failures.get() == 0) {
+            System.out.println("PASS");
+        } else {
+            System.out.println("FAIL: " + failures.get() + " problems");
+            System.exit(1);
+        }
+    }
+
+    private static void check(AtomicLong failures, boolean ok, String what) {
+        if (!ok) fail(failures, what + " mismatch");
+    }
+
+    private static void fail(AtomicLong failures, String message) {
+        // Print only the first few so a broken run stays readable
+        if (failures.incrementAndGet() <= 20) System.out.println("  " + message);
+    }
+}
@@ -0,0 +1,102 @@
+import java.util.Arrays;
+
+/**
+ * Open-addressing long -> int counter map (linear probing, no boxing).
+ * Used for the sparse co-purchase matrix and the trending-product windows.
+ * A slot whose count drops to 0 is kept as a reusable placeholder and
+ * dropped on the next resize.
+ */
+public class CountMap {
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int usedCount;
+    private int live;
+
+    CountMap(int expected) {
+        int cap = 8;
+        while (cap < expected * 2) cap <<= 1;
+        keys = new long[cap];
+        values = new int[cap];
+        used = new boolean[cap];
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    int size() {
+        return live;
+    }
+
+    long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    int valueAt(int slot) {
+        return used[slot] ? values[slot] : 0;
+    }
+
+    int get(long key) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) return values[i];
+        }
+        return 0;
+    }
+
+    void add(long key, int delta) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (used[i]) {
+            if (keys[i] == key) {
+                int before = values[i];
+                values[i] = before + delta;
+                if (before == 0 && values[i] != 0) live++;
+                else if (before != 0 && values[i] == 0) live--;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        if (delta == 0) return;
+        used[i] = true;
+        keys[i] = key;
+        values[i] = delta;
+        usedCount++;
+        live++;
+        if (usedCount * 2 > keys.length) resize();
+    }
+
+    void clear() {
+        Arrays.fill(used, false);
+        Arrays.fill(values, 0);
+        usedCount = 0;
+        live = 0;
+    }
+
+    void remove(long key) {
+        add(key, -get(key));
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        int cap = 8;
+        while (cap < live * 4) cap <<= 1;
+
+        keys = new long[cap];
+        values = new int[cap];
+        used = new boolean[cap];
+        usedCount = 0;
+        live = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i] && oldValues[i] != 0) add(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
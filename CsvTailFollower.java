@@ -0,0 +1,259 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Follows append-only CSV files and hands every newly completed row to a handler.
+ * For each file it remembers the byte offset already consumed and, on every poll,
+ * reads only the tail that grew since.
+ *
+ * Appended rows are expected to end with a newline ("row\n"); a row is complete
+ * once its newline is there. A last row without one may still be being written,
+ * so it is only taken as complete once the file has stopped growing: for the
+ * initial readRows(), if nothing was appended while the file was read, and while
+ * following, if the file kept the same length for a whole poll interval. That
+ * also covers files that, like the bundled CSVs, have no newline after their last
+ * row, and writers that put the newline before each row instead ("\nrow").
+ *
+ * Time Complexity: O(1) for initialization
+ * Space Complexity: O(F) (F = followed files)
+ */
+public class CsvTailFollower {
+    private final List<FollowedFile> files;
+    private Thread poller;
+    private volatile boolean running;
+
+    /**
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public CsvTailFollower() {
+        this.files = new ArrayList<>();
+    }
+
+    /**
+     * Reads a whole file for the initial load and hands each row after the header
+     * to the handler, like the follower does for appended rows.
+     * Time Complexity: O(B) (B = file bytes)
+     * Space Complexity: O(L) (L = longest row)
+     * @return The byte offset just past the last row read, to follow the file from.
+     */
+    public static long readRows(String filePath, Consumer<String> rowHandler) throws IOException {
+        File file = new File(filePath);
+        long startLength = file.length();
+        long position = 0;
+        long consumed = 0;
+        boolean skipHeader = true;
+        byte[] chunk = new byte[1 << 16];
+        byte[] row = new byte[256]; // Holds a row that spans two chunks
+        int rowLength = 0;
+
+        try (InputStream in = new FileInputStream(file)) {
+            int n;
+            while ((n = in.read(chunk)) > 0) {
+                int lineStart = 0;
+                for (int i = 0; i < n; i++) {
+                    if (chunk[i] != '\n') continue;
+                    byte[] bytes = chunk;
+                    int from = lineStart;
+                    int to = i;
+                    if (rowLength > 0) {
+                        row = append(row, rowLength, chunk, lineStart, i);
+                        bytes = row;
+                        from = 0;
+                        to = rowLength + (i - lineStart);
+                        rowLength = 0;
+                    }
+                    if (skipHeader) {
+                        skipHeader = false;
+                    } else {
+                        deliver(bytes, from, to, rowHandler);
+                    }
+                    lineStart = i + 1;
+                    consumed = position + lineStart;
+                }
+                row = append(row, rowLength, chunk, lineStart, n);
+                rowLength += n - lineStart;
+                position += n;
+            }
+        }
+
+        // Unterminated last row: complete only if nothing was appended while reading
+        if (rowLength > 0 && position == startLength && file.length() == startLength) {
+            if (!skipHeader) deliver(row, 0, rowLength, rowHandler);
+            consumed = position;
+        }
+        return consumed;
+    }
+
+    /**
+     * Starts tracking a file from the given byte offset (usually the one
+     * readRows() returned for it). Rows are only delivered once polling runs.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public synchronized void follow(String filePath, long consumedBytes, Consumer<String> rowHandler) {
+        files.add(new FollowedFile(new File(filePath), consumedBytes, rowHandler, null));
+    }
+
+    /**
+     * Like follow(), for a consumer that reads the rows itself: after every poll
+     * that completes rows it is handed the new offset (the end of the last
+     * complete row). An offset below the previous one means the file was truncated.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public synchronized void followOffsets(String filePath, long consumedBytes, LongConsumer offsetHandler) {
+        files.add(new FollowedFile(new File(filePath), consumedBytes, null, offsetHandler));
+    }
+
+    /**
+     * Reads the new tail of every followed file and delivers its complete rows.
+     * Time Complexity: O(B) (B = bytes appended since the last poll)
+     * Space Complexity: O(B)
+     * @return The number of rows delivered (one per offset handed to a followOffsets() consumer).
+     */
+    public synchronized int pollOnce() throws IOException {
+        int delivered = 0;
+        for (FollowedFile followed : files) {
+            delivered += followed.poll();
+        }
+        return delivered;
+    }
+
+    /**
+     * Polls on a background daemon thread until stop() is called.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public synchronized void start(long intervalMillis) {
+        if (running) return;
+        running = true;
+        poller = new Thread(() -> {
+            while (running) {
+                try {
+                    pollOnce();
+                } catch (IOException e) {
+                    System.err.println("Error while following data files: " + e.getMessage());
+                }
+                try {
+                    Thread.sleep(intervalMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "csv-tail-follower");
+        poller.setDaemon(true);
+        poller.start();
+    }
+
+    /**
+     * Stops polling and waits for a poll in progress to finish, so no row is
+     * delivered after this returns. Must not be called while holding a lock the
+     * row handlers need.
+     * Time Complexity: O(1) (plus the poll in progress)
+     * Space Complexity: O(1)
+     */
+    public void stop() {
+        running = false;
+        Thread t = poller;
+        if (t == null || t == Thread.currentThread()) return;
+        t.interrupt();
+        try {
+            t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Hands over the row in bytes[from, to) without its '\r'; returns false for a blank line
+    private static boolean deliver(byte[] bytes, int from, int to, Consumer<String> rowHandler) {
+        if (to > from && bytes[to - 1] == '\r') to--;
+        if (to <= from) return false;
+        rowHandler.accept(new String(bytes, from, to - from, StandardCharsets.UTF_8));
+        return true;
+    }
+
+    private static byte[] append(byte[] row, int rowLength, byte[] bytes, int from, int to) {
+        int needed = rowLength + (to - from);
+        if (needed > row.length) row = Arrays.copyOf(row, Math.max(needed, row.length * 2));
+        System.arraycopy(bytes, from, row, rowLength, to - from);
+        return row;
+    }
+
+    private static class FollowedFile {
+        private final File file;
+        private final Consumer<String> rowHandler;
+        private final LongConsumer offsetHandler;
+        private long offset;
+        // Length seen by the previous poll, to tell a finished last row from one being written
+        private long lastLength = -1;
+
+        FollowedFile(File file, long offset, Consumer<String> rowHandler, LongConsumer offsetHandler) {
+            this.file = file;
+            this.offset = offset;
+            this.rowHandler = rowHandler;
+            this.offsetHandler = offsetHandler;
+        }
+
+        int poll() throws IOException {
+            long length = file.length();
+            boolean atRest = length == lastLength;
+            lastLength = length;
+            if (length < offset) {
+                // File was truncated or replaced: start over, skipping its header row
+                offset = 0;
+                return readTail(length, true, false);
+            }
+            if (length == offset) return 0;
+            return readTail(length, false, atRest);
+        }
+
+        private int readTail(long length, boolean skipHeader, boolean atRest) throws IOException {
+            byte[] tail = new byte[(int) (length - offset)];
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                raf.seek(offset);
+                raf.readFully(tail);
+            }
+
+            // Only consume up to the last newline; a partial row waits until the
+            // file has stopped growing for a poll (see the class comment)
+            int end = tail.length;
+            if (!atRest) {
+                while (end > 0 && tail[end - 1] != '\n') end--;
+            }
+            if (end == 0) return 0;
+            offset += end;
+            if (offsetHandler != null) {
+                offsetHandler.accept(offset);
+                return 1;
+            }
+
+            int delivered = 0;
+            int lineStart = 0;
+            for (int i = 0; i <= end; i++) {
+                if (i < end && tail[i] != '\n') continue;
+                if (i == end && lineStart == end) break; // Tail ended with its newline
+                if (skipHeader) {
+                    skipHeader = false;
+                } else if (deliver(tail, lineStart, i, rowHandler)) {
+                    delivered++;
+                }
+                lineStart = i + 1;
+            }
+            return delivered;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-customer order history ordered by (orderDate, orderId).
+ * Each customer gets an AVL keyed by a packed long (epoch day in the high
+ * 32 bits, orderId in the low 32 bits), so date ranges and "latest N"
+ * are answered by bounded tree walks instead of scanning all orders.
+ *
+ * Time Complexity: O(1) for initialization
+ * Space Complexity: O(O) (O = indexed orders)
+ */
+public class CustomerOrderIndex {
+    private AVL<Integer, AVL<Long, Orders>> historyByCustomer;
+
+    /**
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public CustomerOrderIndex() {
+        this.historyByCustomer = new AVL<>();
+    }
+
+    /**
+     * Time Complexity: O(log C + log n) (n = orders of the customer)
+     * Space Complexity: O(1)
+     */
+    public void add(int customerId, int orderId, Orders order) {
+        AVL<Long, Orders> history = historyByCustomer.search(customerId);
+        if (history == null) {
+            history = new AVL<>();
+            historyByCustomer.insert(customerId, history);
+        }
+        history.insert(key(order.getOrderDate().toEpochDay(), orderId), order);
+    }
+
+    /**
+     * Orders of a customer dated within [startDate, endDate], oldest first.
+     * Time Complexity: O(log C + log n + k) (k = orders returned)
+     * Space Complexity: O(log n + k)
+     */
+    public List<Orders> between(int customerId, Date startDate, Date endDate) {
+        AVL<Long, Orders> history = historyByCustomer.search(customerId);
+        if (history == null) return new ArrayList<>();
+
+        long low = key(startDate.toEpochDay(), 0);
+        long high = key(endDate.toEpochDay(), -1);
+        return history.range(low, high);
+    }
+
+    /**
+     * The customer's n most recent orders, newest first.
+     * Time Complexity: O(log C + log n + k)
+     * Space Complexity: O(log n + k)
+     */
+    public List<Orders> latest(int customerId, int n) {
+        AVL<Long, Orders> history = historyByCustomer.search(customerId);
+        if (history == null) return new ArrayList<>();
+        return history.lastN(n);
+    }
+
+    /**
+     * Time Complexity: O(log C)
+     * Space Complexity: O(1)
+     */
+    public int countFor(int customerId) {
+        AVL<Long, Orders> history = historyByCustomer.search(customerId);
+        return (history == null) ? 0 : history.getSize();
+    }
+
+    // orderId fills the low 32 bits as an unsigned value, so ids 0 and -1
+    // (0xFFFFFFFF) bound every order of a day
+    private static long key(int epochDay, int orderId) {
+        return ((long) epochDay << 32) | (orderId & 0xFFFFFFFFL);
+    }
+}
@@ -1,38 +1,84 @@
 public class Date {
-    private int year;
-    private int month;
-    private int day;
+    // year << 9 | month << 5 | day, so comparing the ints compares the dates.
+    // Years 0 to 4194303 fit; the value is never negative.
+    private final int packed;
 
     public Date(int year, int month, int day) {
-        this.year = year;
-        this.month = month;
-        this.day = day;
+        this.packed = pack(year, month, day);
+    }
+
+    private Date(int packed) {
+        this.packed = packed;
     }
 
     // Parse from string: "YYYY-MM-DD"
     public static Date fromString(String dateStr) {
-        String[] parts = dateStr.split("-");
-        if (parts.length != 3) return null;
-        int y = Integer.parseInt(parts[0]);
-        int m = Integer.parseInt(parts[1]);
-        int d = Integer.parseInt(parts[2]);
-        return new Date(y, m, d);
+        return parse(dateStr, 0, dateStr.length());
+    }
+
+    /**
+     * Parses "YYYY-MM-DD" from a range of a line without creating substrings.
+     * Callers that only need a key or a validity check can use
+     * FieldParser.parsePackedDate() and skip the Date object.
+     * @return null if the range is not three '-' separated fields or a field is out of range.
+     * @throws NumberFormatException if a field is not a number.
+     */
+    public static Date parse(CharSequence s, int from, int to) {
+        int packed = FieldParser.parsePackedDate(s, from, to);
+        return (packed == FieldParser.INVALID_DATE) ? null : new Date(packed);
+    }
+
+    /**
+     * Packs a date into one int; see the packed field.
+     * @throws IllegalArgumentException if a field is out of range.
+     */
+    static int pack(int year, int month, int day) {
+        if (!isValid(year, month, day)) {
+            throw new IllegalArgumentException("Invalid date: " + year + "-" + month + "-" + day);
+        }
+        return year << 9 | month << 5 | day;
     }
 
-    // Compare dates: returns -1, 0, 1
+    static boolean isValid(int year, int month, int day) {
+        return year >= 0 && year < (1 << 22) && month >= 1 && month <= 12 && day >= 1 && day <= 31;
+    }
+
+    // Compare dates: negative, zero or positive.
+    // Both values are non-negative, so the subtraction cannot overflow and needs no branches.
     public int compareTo(Date other) {
-        if (this.year != other.year) return this.year - other.year;
-        if (this.month != other.month) return this.month - other.month;
-        return this.day - other.day;
+        return this.packed - other.packed;
+    }
+
+    // Days since 1970-01-01 (proleptic Gregorian), so dates can be used as numeric keys
+    public int toEpochDay() {
+        return packedToEpochDay(packed);
+    }
+
+    /**
+     * Same as toEpochDay(), for a date in packed form (see FieldParser.parsePackedDate()).
+     */
+    public static int packedToEpochDay(int packed) {
+        int year = packed >>> 9;
+        int month = (packed >>> 5) & 0xF;
+        int day = packed & 0x1F;
+        int y = (month <= 2) ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yoe = y - era * 400;
+        int mp = (month + 9) % 12; // March = 0
+        int doy = (153 * mp + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
     }
 
     @Override
     public String toString() {
-        return year + "-" + (month < 10 ? "0" : "") + month + "-" + (day < 10 ? "0" : "") + day;
+        int month = getMonth();
+        int day = getDay();
+        return getYear() + "-" + (month < 10 ? "0" : "") + month + "-" + (day < 10 ? "0" : "") + day;
     }
 
     // Getters
-    public int getYear() { return year; }
-    public int getMonth() { return month; }
-    public int getDay() { return day; }
+    public int getYear() { return packed >>> 9; }
+    public int getMonth() { return (packed >>> 5) & 0xF; }
+    public int getDay() { return packed & 0x1F; }
 }
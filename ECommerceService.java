@@ -1,8 +1,15 @@
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.Scanner;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
 
 /**
  * Time Complexity: O(N log N) for loading data, O(log N) for search
@@ -10,6 +17,15 @@ import java.util.ArrayList;
  */
 public class ECommerceService {
 
+    // Master lists at least this large are scanned with parallel streams
+    private static final int PARALLEL_SCAN_THRESHOLD = 10_000;
+
+    // totalCents of an order whose CSV total could not be read; it is not recorded in the rollups
+    private static final long UNKNOWN_TOTAL = Long.MIN_VALUE;
+
+    // values() copies the array on every call, so loaders look statuses up here
+    private static final Orders.OrderStatus[] ORDER_STATUSES = Orders.OrderStatus.values();
+
     // Master lists to hold all data, using your custom AVL
     private AVL<Integer, Customers> allCustomers;
     private AVL<Integer, Products> allProducts;
@@ -17,23 +33,98 @@ public class ECommerceService {
     // We don't need a master list for Reviews, as they will be
     // loaded directly into their corresponding Products.
 
+    // "Bought together" matrix built from the products of each order
+    private CoPurchaseIndex coPurchases;
+    // Products of every order that is not cancelled, as ordered (duplicates kept).
+    // Cancelled orders stay in allOrders and the customer index as history only.
+    private AVL<Integer, int[]> activeBaskets;
+
+    // Cached query results, invalidated through per-collection version stamps
+    private QueryCache queryCache;
+
+    // Picks up rows appended to the CSV files after the initial load
+    private CsvTailFollower tailFollower;
+
+    // Each customer's orders ordered by (date, orderId)
+    private CustomerOrderIndex customerOrders;
+
+    // Revenue and order counts per day and status, for O(log D) range totals
+    private RevenueRollup revenue;
+
+    // Best sellers by units over the last 7 and 30 days of orders
+    private TrendingProducts trending7;
+    private TrendingProducts trending30;
+
+    // Single-writer pipeline behind placeOrder(), started on first use
+    private OrderPipeline orderPipeline;
+    // Orders placed here get ids from their own range, so rows later appended
+    // to orders.csv (follow mode) do not collide with them
+    private static final int PLACED_ORDER_ID_BASE = 1_000_000_000;
+    private int nextOrderId = PLACED_ORDER_ID_BASE;
+    // Set once the master lists belong to a ConcurrentECommerceService
+    private boolean handedOver;
+
+    // Offsets of each product's rows in reviews.csv when reviews are loaded on demand
+    // (null = reviews are attached to their products at load time)
+    private LazyReviewIndex lazyReviews;
+    private int lazyReviewCacheSize;
+
+    // Which slice of the customers this instance holds (0 of 1 = everything)
+    private final int shardIndex;
+    private final int shardCount;
+
     /**
      * Time Complexity: O(1)
      * Space Complexity: O(1)
      */
     public ECommerceService() {
+        this(0, 1);
+    }
+
+    /**
+     * Creates one shard of a customer-sharded deployment: only customers whose
+     * id hashes to shardIndex, their orders and their reviews are loaded.
+     * The product catalog is loaded in full on every shard.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public ECommerceService(int shardIndex, int shardCount) {
+        if (shardCount <= 0 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("Invalid shard " + shardIndex + " of " + shardCount);
+        }
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
         allCustomers = new AVL<>();
         allProducts = new AVL<>();
         allOrders = new AVL<>();
+        coPurchases = new CoPurchaseIndex();
+        activeBaskets = new AVL<>();
+        queryCache = new QueryCache(256);
+        tailFollower = new CsvTailFollower();
+        customerOrders = new CustomerOrderIndex();
+        revenue = new RevenueRollup();
+        trending7 = new TrendingProducts(7, 10);
+        trending30 = new TrendingProducts(30, 10);
     }
 
     /**
      * Main entry point for the application.
+     * Pass --follow to keep ingesting rows appended to orders.csv and reviews.csv,
+     * and --lazy-reviews to read each product's reviews from disk only when needed.
      */
     public static void main(String[] args) {
+        List<String> flags = Arrays.asList(args);
         ECommerceService service = new ECommerceService();
+        if (flags.contains("--lazy-reviews")) {
+            service.setLazyReviews(64);
+        }
         service.loadAllData();
+        if (flags.contains("--follow")) {
+            service.startFollowing(1000);
+        }
         service.runMainMenu();
+        service.stopFollowing();
+        service.shutdownOrderPipeline();
     }
 
     // ===================================================================
@@ -54,7 +145,11 @@ public class ECommerceService {
             
             // Load dependent data next
             loadOrders("orders.csv");
-            loadReviews("reviews.csv");
+            if (lazyReviewCacheSize > 0) {
+                loadReviewsLazily("reviews.csv");
+            } else {
+                loadReviews("reviews.csv");
+            }
             
             System.out.println("Data loading complete.");
             System.out.println("Total Customers: " + allCustomers.getSize());
@@ -80,18 +175,25 @@ public class ECommerceService {
         
         while (scanner.hasNextLine()) {
             String line = scanner.nextLine();
-            String[] parts = line.split(",");
+            // Fields are parsed in place; only the name and email become Strings
+            int idEnd = FieldParser.fieldEnd(line, 0);
+            int nameEnd = FieldParser.fieldEnd(line, idEnd + 1);
+            int emailEnd = FieldParser.fieldEnd(line, nameEnd + 1);
             
-            if (parts.length < 3) continue; // Skip bad data
+            if (emailEnd <= nameEnd + 1) continue; // Skip bad data
             
-            int id = Integer.parseInt(parts[0]);
-            String name = parts[1];
-            String email = parts[2];
+            int id = FieldParser.parseInt(line, 0, idEnd);
+
+            if (shardOf(id, shardCount) != shardIndex) continue; // Owned by another shard
+
+            String name = line.substring(idEnd + 1, nameEnd);
+            String email = line.substring(nameEnd + 1, emailEnd);
             
             Customers customer = new Customers(id, name, email);
             allCustomers.insert(id, customer);
         }
         scanner.close();
+        queryCache.bump(QueryCache.CUSTOMERS);
     }
 
     /**
@@ -104,113 +206,348 @@ public class ECommerceService {
         
         while (scanner.hasNextLine()) {
             String line = scanner.nextLine();
-            String[] parts = line.split(",");
+            int idEnd = FieldParser.fieldEnd(line, 0);
+            int nameEnd = FieldParser.fieldEnd(line, idEnd + 1);
+            int priceEnd = FieldParser.fieldEnd(line, nameEnd + 1);
+            int stockEnd = FieldParser.fieldEnd(line, priceEnd + 1);
             
-            if (parts.length < 4) continue; // Skip bad data
+            if (stockEnd <= priceEnd + 1) continue; // Skip bad data
             
-            int id = Integer.parseInt(parts[0]);
-            String name = parts[1];
-            double price = Double.parseDouble(parts[2]);
-            int stock = Integer.parseInt(parts[3]);
+            int id = FieldParser.parseInt(line, 0, idEnd);
+            String name = line.substring(idEnd + 1, nameEnd);
+            // Prices are read as whole cents; the division gives the same double as parsing the text
+            double price = FieldParser.parseCents(line, nameEnd + 1, priceEnd) / 100.0;
+            int stock = FieldParser.parseInt(line, priceEnd + 1, stockEnd);
             
             Products product = new Products(id, name, price, stock);
             allProducts.insert(id, product);
         }
         scanner.close();
+        queryCache.bump(QueryCache.PRODUCTS);
     }
 
     /**
      * Time Complexity: O(O log O) (O = orders)
      * Space Complexity: O(O)
      */
-    private void loadOrders(String filePath) throws FileNotFoundException {
-        Scanner scanner = new Scanner(new File(filePath));
-        scanner.nextLine(); // Skip header row
+    private void loadOrders(String filePath) throws IOException {
+        // Reads whole rows only (see CsvTailFollower); follow mode resumes right after the last one
+        long consumedBytes = CsvTailFollower.readRows(filePath, line -> linkOrderRow(line, false));
+        queryCache.bump(QueryCache.ORDERS);
+
+        // Count co-purchased product pairs over all loaded orders (in parallel)
+        coPurchases.build();
+        tailFollower.follow(filePath, consumedBytes, this::applyOrderRow);
+    }
+
+    /**
+     * Parses one orders.csv row and links the order to its customer and products.
+     * Time Complexity: O(log O + m log P) (m = products in the order)
+     * Space Complexity: O(m)
+     * @param incremental true for rows arriving after the initial load: already
+     *        known orders are skipped and the co-purchase matrix is updated in place.
+     * @return true if the order was added.
+     */
+    private boolean linkOrderRow(String line, boolean incremental) {
+        // orderId,customerId,"productId;productId",totalPrice,orderDate,status
+        int orderIdEnd = FieldParser.fieldEnd(line, 0);
+        int customerIdEnd = FieldParser.fieldEnd(line, orderIdEnd + 1);
+        int productIdsEnd = FieldParser.fieldEnd(line, customerIdEnd + 1);
+        int totalEnd = FieldParser.fieldEnd(line, productIdsEnd + 1);
+        int dateEnd = FieldParser.fieldEnd(line, totalEnd + 1);
+        int statusEnd = FieldParser.fieldEnd(line, dateEnd + 1);
         
-        while (scanner.hasNextLine()) {
-            String line = scanner.nextLine();
-            String[] parts = line.split(",");
-            
-            if (parts.length < 6) continue; // Skip bad data
+        if (statusEnd <= dateEnd + 1) return false; // Skip bad data
 
-            int orderId = Integer.parseInt(parts[0]);
-            int customerId = Integer.parseInt(parts[1]);
-            String productIdsStr = parts[2].replace("\"", ""); // Remove quotes
-            // parts[3] is totalPrice, but we calculate it from products
-            String orderDate = parts[4];
-            String statusStr = parts[5];
+        int orderId = FieldParser.parseInt(line, 0, orderIdEnd);
+        int customerId = FieldParser.parseInt(line, orderIdEnd + 1, customerIdEnd);
+        // totalPrice: the order recalculates it from products, but the CSV value
+        // is what the revenue rollups record. A missing or malformed total only
+        // leaves the order out of the rollups.
+        long totalCents;
+        try {
+            totalCents = FieldParser.parseCents(line, productIdsEnd + 1, totalEnd);
+        } catch (NumberFormatException e) {
+            totalCents = UNKNOWN_TOTAL;
+        }
 
-            // 1. Find the customer for this order
-            Customers customer = findCustomerById(customerId);
-            if (customer == null) {
-                // System.out.println("Warning: Skipping order " + orderId + " - Customer " + customerId + " not found.");
-                continue; // Skip order if customer doesn't exist
+        if (incremental && allOrders.search(orderId) != null) {
+            if (orderId >= PLACED_ORDER_ID_BASE) {
+                System.err.println("Order " + orderId + " appended to orders.csv collides with an order placed here; skipped.");
             }
+            return false; // Row was already picked up by an earlier read
+        }
 
-            // 2. Create the order
-            Orders order = new Orders(orderId, customerId, orderDate);
-            
-            // 3. Set order status
-            try {
-                Orders.OrderStatus status = Orders.OrderStatus.valueOf(statusStr.toUpperCase());
-                order.updateStatus(status);
-            } catch (IllegalArgumentException e) {
-                order.updateStatus(Orders.OrderStatus.PENDING); // Default
-            }
-
-            // 4. Find and add products to the order
-            String[] productIds = productIdsStr.split(";");
-            for (String pidStr : productIds) {
-                int productId = Integer.parseInt(pidStr);
-                Products product = findProductById(productId);
-                if (product != null) {
-                    order.addProduct(product);
-                } else {
-                    // System.out.println("Warning: Product " + productId + " for order " + orderId + " not found.");
-                }
+        // 1. Find the customer for this order
+        Customers customer = findCustomerById(customerId);
+        if (customer == null) {
+            // System.out.println("Warning: Skipping order " + orderId + " - Customer " + customerId + " not found.");
+            return false; // Skip order if customer doesn't exist
+        }
+
+        // 2. Create the order. Orders takes its date as text and parses it itself,
+        // so the row is only checked here (in place, no Date built). The date keys
+        // the customer index and the rollups, so a row without a usable one is skipped.
+        String orderDate = line.substring(totalEnd + 1, dateEnd);
+        if (!isValidDate(line, totalEnd + 1, dateEnd)) {
+            System.err.println("Order " + orderId + " has an invalid date \"" + orderDate + "\"; skipped.");
+            return false;
+        }
+        Orders order = new Orders(orderId, customerId, orderDate);
+        
+        // 3. Set order status
+        Orders.OrderStatus status = parseStatus(line, dateEnd + 1, statusEnd);
+        order.updateStatus(status);
+
+        // 4. Find and add products to the order
+        int idsFrom = customerIdEnd + 1;
+        int idsTo = productIdsEnd;
+        if (idsFrom < idsTo && line.charAt(idsFrom) == '"') idsFrom++; // Remove quotes
+        if (idsTo > idsFrom && line.charAt(idsTo - 1) == '"') idsTo--;
+        int[] basket = new int[countSeparated(line, idsFrom, idsTo, ';')];
+        int basketSize = 0;
+        for (int from = idsFrom; from <= idsTo; ) {
+            int to = from;
+            while (to < idsTo && line.charAt(to) != ';') to++;
+            int productId = FieldParser.parseInt(line, from, to);
+            from = to + 1;
+            Products product = findProductById(productId);
+            if (product != null) {
+                order.addProduct(product);
+                basket[basketSize++] = productId;
+            } else {
+                // System.out.println("Warning: Product " + productId + " for order " + orderId + " not found.");
             }
-            
-            // 5. Add the completed order to the master list and the customer
-            allOrders.insert(orderId, order);
-            customer.addOrder(order);
         }
-        scanner.close();
+        
+        // 5. Add the completed order to the master list and the customer
+        indexOrder(order, customer, orderId, customerId, Arrays.copyOf(basket, basketSize),
+                   status, totalCents, incremental);
+        return true;
+    }
+
+    /**
+     * Time Complexity: O(L) (L = field length)
+     * Space Complexity: O(1)
+     */
+    private static boolean isValidDate(String line, int from, int to) {
+        try {
+            return FieldParser.parsePackedDate(line, from, to) != FieldParser.INVALID_DATE;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Case-insensitive status lookup that does not build an upper-cased copy.
+     * Time Complexity: O(S * L) (S = statuses, L = name length)
+     * Space Complexity: O(1)
+     * @return PENDING for an unknown status, as before.
+     */
+    private static Orders.OrderStatus parseStatus(String line, int from, int to) {
+        int length = to - from;
+        for (Orders.OrderStatus status : ORDER_STATUSES) {
+            String name = status.name();
+            if (name.length() == length && line.regionMatches(true, from, name, 0, length)) {
+                return status;
+            }
+        }
+        return Orders.OrderStatus.PENDING; // Default
+    }
+
+    /**
+     * Number of separator-delimited fields in [from, to) (one more than the separators).
+     * Time Complexity: O(to - from)
+     * Space Complexity: O(1)
+     */
+    private static int countSeparated(String line, int from, int to, char separator) {
+        int fields = 1;
+        for (int i = from; i < to; i++) {
+            if (line.charAt(i) == separator) fields++;
+        }
+        return fields;
+    }
+
+    /**
+     * Links a fully built order into the master list, its customer and every
+     * derived index (co-purchases, order history, revenue, trending).
+     * Time Complexity: O(log O + log C + m^2 log P)
+     * Space Complexity: O(m)
+     */
+    private void indexOrder(Orders order, Customers customer, int orderId, int customerId, int[] basket,
+                            Orders.OrderStatus status, long totalCents, boolean incremental) {
+        allOrders.insert(orderId, order);
+        customer.addOrder(order);
+        customerOrders.add(customerId, orderId, order);
+        if (totalCents != UNKNOWN_TOTAL && !revenue.add(orderId, order.getOrderDate(), status, totalCents)) {
+            System.err.println("Order " + orderId + " dated " + order.getOrderDate() +
+                               " is too far from the other orders for the revenue rollups; not recorded.");
+        }
+        // A row already cancelled in the CSV is kept as history, like cancelOrder() leaves it
+        if (status != Orders.OrderStatus.CANCELLED) {
+            activeBaskets.insert(orderId, basket);
+            trending7.addOrder(order.getOrderDate(), basket);
+            trending30.addOrder(order.getOrderDate(), basket);
+            if (incremental) {
+                coPurchases.addOrder(orderId, basket);
+            } else {
+                coPurchases.stage(orderId, basket);
+            }
+        }
+        if (orderId >= nextOrderId) {
+            nextOrderId = orderId + 1;
+        }
     }
 
     /**
      * Time Complexity: O(R log R) (R = reviews)
      * Space Complexity: O(R)
      */
-    private void loadReviews(String filePath) throws FileNotFoundException {
-        Scanner scanner = new Scanner(new File(filePath));
-        scanner.nextLine(); // Skip header row
+    private void loadReviews(String filePath) throws IOException {
+        long consumedBytes = CsvTailFollower.readRows(filePath, line -> linkReviewRow(line, false));
+        queryCache.bump(QueryCache.REVIEWS | QueryCache.PRODUCTS);
+        tailFollower.follow(filePath, consumedBytes, this::applyReviewRow);
+    }
+
+    /**
+     * Loads reviews on demand: only each product's rating sum, review count and
+     * row offsets are read now; its Reviews are parsed from the memory-mapped
+     * file when a query first needs them. Must be called before loadAllData().
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     * @param cacheSize How many products' loaded reviews to keep in memory.
+     */
+    public void setLazyReviews(int cacheSize) {
+        if (cacheSize <= 0) throw new IllegalArgumentException("cacheSize must be positive");
+        this.lazyReviewCacheSize = cacheSize;
+    }
+
+    /**
+     * Time Complexity: O(B + R log P) (B = file bytes)
+     * Space Complexity: O(P + R) ints, no Reviews objects
+     */
+    private void loadReviewsLazily(String filePath) throws IOException {
+        // Same filter as linkReviewRow: known products, reviews by this shard's customers
+        lazyReviews = new LazyReviewIndex(filePath, lazyReviewCacheSize,
+                (productId, customerId) -> shardOf(customerId, shardCount) == shardIndex
+                                           && allProducts.search(productId) != null);
+        lazyReviews.build();
+        queryCache.bump(QueryCache.REVIEWS | QueryCache.PRODUCTS);
+        tailFollower.followOffsets(filePath, lazyReviews.getIndexedBytes(), this::applyLazyReviewTail);
+    }
+
+    /**
+     * Parses one reviews.csv row and attaches the review to its product.
+     * Time Complexity: O(log P + log R)
+     * Space Complexity: O(1)
+     * @param incremental true for rows arriving after the initial load: reviews the
+     *        product already holds are skipped.
+     * @return true if the review was added.
+     */
+    private boolean linkReviewRow(String line, boolean incremental) {
+        // The comment is everything after the fourth comma, commas included
+        int reviewIdEnd = FieldParser.fieldEnd(line, 0);
+        int productIdEnd = FieldParser.fieldEnd(line, reviewIdEnd + 1);
+        int customerIdEnd = FieldParser.fieldEnd(line, productIdEnd + 1);
+        int ratingEnd = FieldParser.fieldEnd(line, customerIdEnd + 1);
         
-        while (scanner.hasNextLine()) {
-            String line = scanner.nextLine();
-            
-            // Use split with a limit of 5 to handle commas in the comment
-            String[] parts = line.split(",", 5); 
-            
-            if (parts.length < 5) continue; // Skip bad data
-            
-            int reviewId = Integer.parseInt(parts[0]);
-            int productId = Integer.parseInt(parts[1]);
-            int customerId = Integer.parseInt(parts[2]);
-            int rating = Integer.parseInt(parts[3]);
-            String comment = parts[4].replace("\"", ""); // Remove quotes
+        if (ratingEnd >= line.length()) return false; // Skip bad data
+        
+        int reviewId = FieldParser.parseInt(line, 0, reviewIdEnd);
+        int productId = FieldParser.parseInt(line, reviewIdEnd + 1, productIdEnd);
+        int customerId = FieldParser.parseInt(line, productIdEnd + 1, customerIdEnd);
+        int rating = FieldParser.parseInt(line, customerIdEnd + 1, ratingEnd);
 
-            // 1. Find the product for this review
-            Products product = findProductById(productId);
-            if (product == null) {
-                // System.out.println("Warning: Skipping review " + reviewId + " - Product " + productId + " not found.");
-                continue; // Skip review if product doesn't exist
+        if (shardOf(customerId, shardCount) != shardIndex) {
+            return false; // Reviews live on their author's shard
+        }
+
+        // 1. Find the product for this review
+        Products product = findProductById(productId);
+        if (product == null) {
+            // System.out.println("Warning: Skipping review " + reviewId + " - Product " + productId + " not found.");
+            return false; // Skip review if product doesn't exist
+        }
+
+        if (incremental && product.getReviews().search(reviewId) != null) {
+            return false; // Row was already picked up by an earlier read
+        }
+
+        // 2. Add the review to the product
+        // This calls the addReview method in your Products class
+        String comment = line.substring(ratingEnd + 1).replace("\"", ""); // Remove quotes
+        product.addReview(reviewId, customerId, rating, comment);
+        return true;
+    }
+
+    // ===================================================================
+    // 1b. FOLLOW MODE (incremental ingestion of appended CSV rows)
+    // ===================================================================
+
+    /**
+     * Starts picking up rows appended to orders.csv and reviews.csv after
+     * loadAllData(), polling every intervalMillis.
+     * Time Complexity: O(1) (each poll costs O(new rows * log N))
+     * Space Complexity: O(1)
+     */
+    public synchronized void startFollowing(long intervalMillis) {
+        if (handedOver) throw new IllegalStateException("Service was handed over to a concurrent facade.");
+        System.out.println("Following orders.csv and reviews.csv for new rows...");
+        tailFollower.start(intervalMillis);
+    }
+
+    /**
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public void stopFollowing() {
+        tailFollower.stop();
+    }
+
+    /**
+     * Row handler for appended orders; runs on the follower thread.
+     * Time Complexity: O(log O + m log P + m^2 log P)
+     * Space Complexity: O(m)
+     */
+    private synchronized void applyOrderRow(String line) {
+        try {
+            if (linkOrderRow(line, true)) {
+                queryCache.bump(QueryCache.ORDERS);
             }
+        } catch (NumberFormatException e) {
+            System.err.println("Skipping malformed order row: " + line);
+        }
+    }
 
-            // 2. Add the review to the product
-            // This calls the addReview method in your Products class
-            product.addReview(reviewId, customerId, rating, comment);
+    /**
+     * Row handler for appended reviews; runs on the follower thread.
+     * Time Complexity: O(log P + log R)
+     * Space Complexity: O(1)
+     */
+    private synchronized void applyReviewRow(String line) {
+        try {
+            if (linkReviewRow(line, true)) {
+                queryCache.bump(QueryCache.REVIEWS | QueryCache.PRODUCTS);
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Skipping malformed review row: " + line);
+        }
+    }
+
+    /**
+     * Appended-review handler in lazy mode; runs on the follower thread.
+     * The index reads the new rows itself, up to the row boundary the follower reached.
+     * Time Complexity: O(new rows * log P) (all rows if reviews.csv was truncated)
+     * Space Complexity: O(new rows)
+     */
+    private synchronized void applyLazyReviewTail(long completeBytes) {
+        try {
+            if (lazyReviews.catchUp(completeBytes) != 0) { // -1: rebuilt after a truncation
+                queryCache.bump(QueryCache.REVIEWS | QueryCache.PRODUCTS);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not index new reviews: " + e.getMessage());
         }
-        scanner.close();
     }
 
     // ===================================================================
@@ -221,7 +558,7 @@ public class ECommerceService {
      * Time Complexity: O(log C)
      * Space Complexity: O(log C) (recursion stack)
      */
-    private Customers findCustomerById(int customerId) {
+    private synchronized Customers findCustomerById(int customerId) {
         return allCustomers.search(customerId);
     }
 
@@ -229,10 +566,48 @@ public class ECommerceService {
      * Time Complexity: O(log P)
      * Space Complexity: O(log P) (recursion stack)
      */
-    private Products findProductById(int productId) {
+    private synchronized Products findProductById(int productId) {
         return allProducts.search(productId);
     }
 
+    /**
+     * Streams a master list in key order; large lists are scanned in parallel.
+     * Time Complexity: O(1) to create, O(N / p) to consume on p cores
+     * Space Complexity: O(log N)
+     */
+    private static <T> Stream<T> scan(AVL<Integer, T> tree) {
+        return (tree.getSize() >= PARALLEL_SCAN_THRESHOLD) ? tree.parallelStream() : tree.stream();
+    }
+
+    /**
+     * Like scan(), but streams the nodes, for scans that need the keys too.
+     * Time Complexity: O(1) to create, O(N / p) to consume on p cores
+     * Space Complexity: O(log N)
+     */
+    private static <T> Stream<AVLNode<Integer, T>> scanNodes(AVL<Integer, T> tree) {
+        return tree.nodeStream(tree.getSize() >= PARALLEL_SCAN_THRESHOLD);
+    }
+
+    /**
+     * Average rating of a product, from the lazy index when reviews are loaded on demand.
+     * Not synchronized: called from parallel scans while the caller holds the lock.
+     * Time Complexity: O(log P) lazily, otherwise that of Products.getAverageRating()
+     * Space Complexity: O(1)
+     */
+    private double ratingOf(int productId, Products product) {
+        return (lazyReviews != null) ? lazyReviews.averageRating(productId) : product.getAverageRating();
+    }
+
+    /**
+     * Reviews of a product; in lazy mode they are read from disk on a cache miss.
+     * Not synchronized, for the same reason as ratingOf().
+     * Time Complexity: O(1), or O(R log R) on a lazy cache miss (R = its reviews)
+     * Space Complexity: O(R)
+     */
+    private AVL<Integer, Reviews> reviewsOf(int productId, Products product) {
+        return (lazyReviews != null) ? lazyReviews.reviewsFor(productId) : product.getReviews();
+    }
+
     // ===================================================================
     // 3. MAIN MENU & QUERY HANDLERS
     // ===================================================================
@@ -253,6 +628,14 @@ public class ECommerceService {
             System.out.println("  3. Find Common Highly-Rated Products Between Two Customers");
             System.out.println("  4. List All Customers Sorted Alphabetically");
             System.out.println("  5. List All Products Within a Price Range");
+            System.out.println("  6. Show Products Frequently Bought Together");
+            System.out.println("  7. Show Query Cache Statistics");
+            System.out.println("  8. Cancel an Order");
+            System.out.println("  9. Remove a Product");
+            System.out.println("  10. Show a Customer's Order History");
+            System.out.println("  11. Revenue Report Between Two Dates");
+            System.out.println("  12. Show Trending Products (last 7 / 30 days)");
+            System.out.println("  13. Place an Order");
             System.out.println("  0. Exit");
             System.out.print("Enter choice: ");
 
@@ -280,6 +663,30 @@ public class ECommerceService {
                 case 5:
                     handleProductsInPriceRange(scanner);
                     break;
+                case 6:
+                    handleAlsoBought(scanner);
+                    break;
+                case 7:
+                    displayCacheStatistics();
+                    break;
+                case 8:
+                    handleCancelOrder(scanner);
+                    break;
+                case 9:
+                    handleRemoveProduct(scanner);
+                    break;
+                case 10:
+                    handleCustomerOrderHistory(scanner);
+                    break;
+                case 11:
+                    handleRevenueReport(scanner);
+                    break;
+                case 12:
+                    handleTrendingProducts(scanner);
+                    break;
+                case 13:
+                    handlePlaceOrder(scanner);
+                    break;
                 case 0:
                     running = false;
                     System.out.println("Thank you. Exiting.");
@@ -385,162 +792,891 @@ public class ECommerceService {
         }
     }
 
-    // ===================================================================
-    // 4. STATISTICAL QUERY METHODS (As per Project PDF)
-    // ===================================================================
-
     /**
-     * Time Complexity: O(P)
-     * Space Complexity: O(P)
+     * Time Complexity: O(log P + d * k)
+     * Space Complexity: O(k)
      */
-    public void displayTop3ProductsByRating() {
-        // We cannot sort (per project rules), so we do a single pass
-        // to find the top 3.
-        
-        Products top1 = null;
-        Products top2 = null;
-        Products top3 = null;
-        
-        double rating1 = -1.0;
-        double rating2 = -1.0;
-        double rating3 = -1.0;
-
-        for (Products p : allProducts.inOrderTraversal()) {
-            double pRating = p.getAverageRating();
-            
-            // Skip products with no reviews
-            if (pRating == 0.0) {
-                continue;
+    private void handleAlsoBought(Scanner scanner) {
+        System.out.println("\n--- Products Frequently Bought Together ---");
+        try {
+            System.out.print("Enter product ID: ");
+            int productId = Integer.parseInt(scanner.nextLine());
+            Products product = findProductById(productId);
+            if (product == null) {
+                System.out.println("Product " + productId + " not found.");
+                return;
             }
 
-            if (pRating > rating1) {
-                // Shift down
-                top3 = top2;
-                rating3 = rating2;
-                top2 = top1;
-                rating2 = rating1;
-                // New top
-                top1 = p;
-                rating1 = pRating;
-            } else if (pRating > rating2) {
-                // Shift down
-                top3 = top2;
-                rating3 = rating2;
-                // New 2nd
-                top2 = p;
-                rating2 = pRating;
-            } else if (pRating > rating3) {
-                // New 3rd
-                top3 = p;
-                rating3 = pRating;
-            }
+            System.out.println("\nCustomers who bought " + product.getName() + " also bought:");
+            displayAlsoBought(productId, 5);
+
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid ID. Please enter a number.");
         }
-        
-        System.out.println("1. " + (top1 != null ? top1.toString() : "N/A"));
-        System.out.println("2. " + (top2 != null ? top2.toString() : "N/A"));
-        System.out.println("3. " + (top3 != null ? top3.toString() : "N/A"));
     }
 
     /**
-     * Time Complexity: O(O)
-     * Space Complexity: O(O)
+     * Time Complexity: O(log O + m^2 log P)
+     * Space Complexity: O(log O)
      */
-    public void displayOrdersBetweenDates(Date startDate, Date endDate) {
-        int count = 0;
-        
-        for (Orders order : allOrders.inOrderTraversal()) {
-            Date orderDate = order.getOrderDate();
-
-            // Check if (orderDate >= startDate) AND (orderDate <= endDate)
-            if (orderDate.compareTo(startDate) >= 0 && orderDate.compareTo(endDate) <= 0) {
-                System.out.println(order.toString());
-                count++;
+    private void handleCancelOrder(Scanner scanner) {
+        System.out.println("\n--- Cancel an Order ---");
+        try {
+            System.out.print("Enter order ID: ");
+            int orderId = Integer.parseInt(scanner.nextLine());
+            if (cancelOrder(orderId)) {
+                System.out.println("Order " + orderId + " cancelled.");
+            } else {
+                System.out.println("Order " + orderId + " not found or already cancelled.");
             }
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid ID. Please enter a number.");
         }
+    }
 
-        if (count == 0) {
-            System.out.println("No orders found between " + startDate + " and " + endDate + ".");
-        } else {
-            System.out.println("Found " + count + " orders.");
+    /**
+     * Time Complexity: O(log P + d log P)
+     * Space Complexity: O(log P)
+     */
+    private void handleRemoveProduct(Scanner scanner) {
+        System.out.println("\n--- Remove a Product ---");
+        try {
+            System.out.print("Enter product ID: ");
+            int productId = Integer.parseInt(scanner.nextLine());
+            if (removeProduct(productId)) {
+                System.out.println("Product " + productId + " removed.");
+            } else {
+                System.out.println("Product " + productId + " not found.");
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid ID. Please enter a number.");
         }
     }
 
     /**
-     * Time Complexity: O(P * R)
-     * Space Complexity: O(P)
+     * Time Complexity: O(log C + log n + k)
+     * Space Complexity: O(k)
      */
-    public void displayCommonProducts(int custId1, int custId2) {
-        int count = 0;
-
-        for (Products product : allProducts.inOrderTraversal()) {
-            
-            // 1. Check if average rating is > 4.0
-            if (product.getAverageRating() <= 4.0) {
-                continue; // Skip this product
+    private void handleCustomerOrderHistory(Scanner scanner) {
+        System.out.println("\n--- Customer Order History ---");
+        try {
+            System.out.print("Enter customer ID: ");
+            int customerId = Integer.parseInt(scanner.nextLine());
+            Customers customer = findCustomerById(customerId);
+            if (customer == null) {
+                System.out.println("Customer " + customerId + " not found.");
+                return;
             }
 
-            // 2. Check if customer 1 reviewed this product
-            boolean cust1Reviewed = false;
-            AVL<Integer, Reviews> reviews = product.getReviews();
-            for (Reviews rev : reviews.inOrderTraversal()) {
-                if (rev.getCustomerId() == custId1) {
-                    cust1Reviewed = true;
-                    break;
-                }
+            System.out.print("Enter Start Date (YYYY-MM-DD, blank for the latest 10 orders): ");
+            String start = scanner.nextLine().trim();
+            if (start.isEmpty()) {
+                System.out.println("\nLatest orders for " + customer.getName() + ":");
+                displayLatestCustomerOrders(customerId, 10);
+                return;
             }
 
-            // 3. If cust1 reviewed it, check if customer 2 also reviewed it
-            if (cust1Reviewed) {
-                boolean cust2Reviewed = false;
-                for (Reviews rev : reviews.inOrderTraversal()) {
-                    if (rev.getCustomerId() == custId2) {
-                        cust2Reviewed = true;
-                        break;
-                    }
-                }
-                
-                // 4. If both reviewed it, print it
-                if (cust2Reviewed) {
-                    System.out.println("  - " + product.getName() + 
-                                       " (Rating: " + String.format("%.1f", product.getAverageRating()) + ")");
-                    count++;
-                }
+            System.out.print("Enter End Date (YYYY-MM-DD): ");
+            Date startDate = Date.fromString(start);
+            Date endDate = Date.fromString(scanner.nextLine().trim());
+            if (startDate == null || endDate == null) {
+                System.out.println("Invalid date format.");
+                return;
             }
-        }
 
-        if (count == 0) {
-            System.out.println("No common products with > 4.0 rating found for these customers.");
-        }
-    }
+            System.out.println("\nOrders for " + customer.getName() + " from " + startDate + " to " + endDate + ":");
+            displayCustomerOrdersBetweenDates(customerId, startDate, endDate);
 
-    /**
-     * Time Complexity: O(C log C)
-     * Space Complexity: O(C)
-     */
-    public void displayCustomersSortedByName() {
-        List<Customers> customers = allCustomers.inOrderTraversal();
-        customers.sort((c1, c2) -> c1.getName().compareToIgnoreCase(c2.getName()));
-        
-        for (Customers c : customers) {
-            System.out.println(c.toString());
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid input. Please use a numeric ID and YYYY-MM-DD dates.");
         }
     }
 
     /**
-     * Time Complexity: O(P)
-     * Space Complexity: O(P)
+     * Time Complexity: O(log D)
+     * Space Complexity: O(1)
      */
-    public void displayProductsInPriceRange(double minPrice, double maxPrice) {
-        int count = 0;
-        for (Products p : allProducts.inOrderTraversal()) {
-            if (p.getPrice() >= minPrice && p.getPrice() <= maxPrice) {
-                System.out.println(p.toString());
-                count++;
+    private void handleRevenueReport(Scanner scanner) {
+        System.out.println("\n--- Revenue Report ---");
+        try {
+            System.out.print("Enter Start Date (YYYY-MM-DD): ");
+            Date startDate = Date.fromString(scanner.nextLine().trim());
+
+            System.out.print("Enter End Date (YYYY-MM-DD): ");
+            Date endDate = Date.fromString(scanner.nextLine().trim());
+
+            if (startDate == null || endDate == null) {
+                System.out.println("Invalid date format.");
+                return;
             }
+
+            System.out.print("Enter Status (Pending, Shipped, ... or blank for all but Cancelled): ");
+            String statusStr = scanner.nextLine().trim();
+            Orders.OrderStatus status = null;
+            if (!statusStr.isEmpty()) {
+                status = Orders.OrderStatus.valueOf(statusStr.toUpperCase());
+            }
+
+            displayRevenueBetweenDates(startDate, endDate, status);
+
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid date format. Please use YYYY-MM-DD.");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Unknown order status.");
+        }
+    }
+
+    /**
+     * Time Complexity: O(N log P)
+     * Space Complexity: O(N)
+     */
+    private void handleTrendingProducts(Scanner scanner) {
+        System.out.println("\n--- Trending Products ---");
+        try {
+            System.out.print("Enter window in days (7 or 30): ");
+            int windowDays = Integer.parseInt(scanner.nextLine().trim());
+            if (windowDays != 7 && windowDays != 30) {
+                System.out.println("Please enter 7 or 30.");
+                return;
+            }
+            displayTrendingProducts(windowDays);
+
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid input. Please enter a number.");
+        }
+    }
+
+    /**
+     * Time Complexity: O(m log P) (waits for the pipeline writer)
+     * Space Complexity: O(m)
+     */
+    private void handlePlaceOrder(Scanner scanner) {
+        System.out.println("\n--- Place an Order ---");
+        try {
+            System.out.print("Enter customer ID: ");
+            int customerId = Integer.parseInt(scanner.nextLine().trim());
+
+            System.out.print("Enter product IDs (separated by ;): ");
+            String[] parts = scanner.nextLine().split(";");
+            int[] productIds = new int[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                productIds[i] = Integer.parseInt(parts[i].trim());
+            }
+
+            Orders order = placeOrder(customerId, productIds).get();
+            System.out.println("Order placed: " + order.toString());
+
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid ID. Please enter numbers only.");
+        } catch (ExecutionException e) {
+            System.out.println("Order rejected: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ===================================================================
+    // 4. STATISTICAL QUERY METHODS (As per Project PDF)
+    // ===================================================================
+
+    /**
+     * Time Complexity: O(P) on a cache miss, O(1) on a hit
+     * Space Complexity: O(1)
+     */
+    public synchronized void displayTop3ProductsByRating() {
+        List<Products> top = findTop3ProductsByRating();
+
+        System.out.println("1. " + (top.size() > 0 ? top.get(0).toString() : "N/A"));
+        System.out.println("2. " + (top.size() > 1 ? top.get(1).toString() : "N/A"));
+        System.out.println("3. " + (top.size() > 2 ? top.get(2).toString() : "N/A"));
+    }
+
+    /**
+     * Time Complexity: O(P) on a cache miss, O(1) on a hit
+     * Space Complexity: O(P)
+     */
+    public synchronized List<Products> findTop3ProductsByRating() {
+        String key = "top3";
+        List<Products> cached = queryCache.get(key);
+        if (cached != null) return cached;
+
+        // We cannot sort (per project rules), so every fork-join leaf keeps
+        // its own top 3 in a single pass and the partial results are merged.
+        List<Products> result = scanNodes(allProducts)
+                .collect(() -> new TopRated(3),
+                         (top, node) -> top.offer(node.getData(), ratingOf(node.getKey(), node.getData())),
+                         TopRated::merge)
+                .toList();
+
+        queryCache.put(key, QueryCache.PRODUCTS | QueryCache.REVIEWS, result);
+        return result;
+    }
+
+    /**
+     * Time Complexity: O(O) on a cache miss, O(k) on a hit (k = matching orders)
+     * Space Complexity: O(k)
+     */
+    public synchronized void displayOrdersBetweenDates(Date startDate, Date endDate) {
+        List<Orders> orders = findOrdersBetweenDates(startDate, endDate);
+        
+        for (Orders order : orders) {
+            System.out.println(order.toString());
+        }
+
+        if (orders.isEmpty()) {
+            System.out.println("No orders found between " + startDate + " and " + endDate + ".");
+        } else {
+            System.out.println("Found " + orders.size() + " orders.");
+        }
+    }
+
+    /**
+     * Time Complexity: O(O) on a cache miss, O(1) on a hit
+     * Space Complexity: O(O)
+     */
+    public synchronized List<Orders> findOrdersBetweenDates(Date startDate, Date endDate) {
+        String key = "orders:" + startDate + ":" + endDate;
+        List<Orders> cached = queryCache.get(key);
+        if (cached != null) return cached;
+
+        List<Orders> result = scan(allOrders)
+                .filter(order -> {
+                    Date orderDate = order.getOrderDate();
+                    // Check if (orderDate >= startDate) AND (orderDate <= endDate)
+                    return orderDate.compareTo(startDate) >= 0 && orderDate.compareTo(endDate) <= 0;
+                })
+                .toList();
+
+        queryCache.put(key, QueryCache.ORDERS, result);
+        return result;
+    }
+
+    /**
+     * Time Complexity: O(P * R) on a cache miss, O(k) on a hit
+     * Space Complexity: O(k)
+     */
+    public synchronized void displayCommonProducts(int custId1, int custId2) {
+        List<Integer> common = findCommonProductIds(custId1, custId2);
+
+        for (int productId : common) {
+            Products product = findProductById(productId);
+            System.out.println("  - " + product.getName() + 
+                               " (Rating: " + String.format("%.1f", ratingOf(productId, product)) + ")");
+        }
+
+        if (common.isEmpty()) {
+            System.out.println("No common products with > 4.0 rating found for these customers.");
+        }
+    }
+
+    /**
+     * Time Complexity: O(P * R) on a cache miss, O(k log P) on a hit
+     * Space Complexity: O(P)
+     */
+    public synchronized List<Products> findCommonProducts(int custId1, int custId2) {
+        List<Products> result = new ArrayList<>();
+        for (int productId : findCommonProductIds(custId1, custId2)) {
+            result.add(findProductById(productId));
+        }
+        return result;
+    }
+
+    /**
+     * Ids of the common products, in productId order.
+     * Time Complexity: O(P * R) on a cache miss, O(1) on a hit
+     * Space Complexity: O(P)
+     */
+    private synchronized List<Integer> findCommonProductIds(int custId1, int custId2) {
+        String key = "common:" + custId1 + ":" + custId2;
+        List<Integer> cached = queryCache.get(key);
+        if (cached != null) return cached;
+
+        List<Integer> result = scanNodes(allProducts)
+                .filter(node -> isCommonHighlyRated(node.getKey(), node.getData(), custId1, custId2))
+                .map(AVLNode::getKey)
+                .toList();
+
+        queryCache.put(key, QueryCache.PRODUCTS | QueryCache.REVIEWS, result);
+        return result;
+    }
+
+    /**
+     * Time Complexity: O(R) (R = reviews of the product)
+     * Space Complexity: O(R)
+     */
+    private boolean isCommonHighlyRated(int productId, Products product, int custId1, int custId2) {
+        // 1. Check if average rating is > 4.0
+        if (ratingOf(productId, product) <= 4.0) {
+            return false; // Skip this product
+        }
+
+        // 2. Check if customer 1 reviewed this product
+        boolean cust1Reviewed = false;
+        AVL<Integer, Reviews> reviews = reviewsOf(productId, product);
+        for (Reviews rev : reviews.inOrderTraversal()) {
+            if (rev.getCustomerId() == custId1) {
+                cust1Reviewed = true;
+                break;
+            }
+        }
+
+        // 3. If cust1 reviewed it, check if customer 2 also reviewed it
+        if (!cust1Reviewed) {
+            return false;
+        }
+        for (Reviews rev : reviews.inOrderTraversal()) {
+            if (rev.getCustomerId() == custId2) {
+                return true; // 4. Both reviewed it
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Time Complexity: O(C log C) on a cache miss, O(C) on a hit
+     * Space Complexity: O(C)
+     */
+    public synchronized void displayCustomersSortedByName() {
+        for (Customers c : findCustomersSortedByName()) {
+            System.out.println(c.toString());
+        }
+    }
+
+    /**
+     * Time Complexity: O(C log C) on a cache miss, O(1) on a hit
+     * Space Complexity: O(C)
+     */
+    public synchronized List<Customers> findCustomersSortedByName() {
+        String key = "customersByName";
+        List<Customers> cached = queryCache.get(key);
+        if (cached != null) return cached;
+
+        List<Customers> customers = allCustomers.inOrderTraversal();
+        customers.sort((c1, c2) -> c1.getName().compareToIgnoreCase(c2.getName()));
+
+        List<Customers> result = Collections.unmodifiableList(customers);
+        queryCache.put(key, QueryCache.CUSTOMERS, result);
+        return result;
+    }
+
+    /**
+     * Time Complexity: O(P) on a cache miss, O(k) on a hit
+     * Space Complexity: O(k)
+     */
+    public synchronized void displayProductsInPriceRange(double minPrice, double maxPrice) {
+        List<Products> products = findProductsInPriceRange(minPrice, maxPrice);
+        for (Products p : products) {
+            System.out.println(p.toString());
         }
         
-        if (count == 0) {
+        if (products.isEmpty()) {
             System.out.println("No products found in this price range.");
         }
     }
+
+    /**
+     * Time Complexity: O(P) on a cache miss, O(1) on a hit
+     * Space Complexity: O(P)
+     */
+    public synchronized List<Products> findProductsInPriceRange(double minPrice, double maxPrice) {
+        String key = "price:" + minPrice + ":" + maxPrice;
+        List<Products> cached = queryCache.get(key);
+        if (cached != null) return cached;
+
+        List<Products> result = scan(allProducts)
+                .filter(p -> p.getPrice() >= minPrice && p.getPrice() <= maxPrice)
+                .toList();
+
+        queryCache.put(key, QueryCache.PRODUCTS, result);
+        return result;
+    }
+
+    /**
+     * Time Complexity: O(log P + d * k) (d = distinct co-purchased partners)
+     * Space Complexity: O(k)
+     */
+    public synchronized void displayAlsoBought(int productId, int k) {
+        int[] partners = coPurchases.alsoBought(productId, k);
+        if (partners.length == 0) {
+            System.out.println("No products have been bought together with this product yet.");
+            return;
+        }
+
+        for (int partnerId : partners) {
+            Products partner = findProductById(partnerId);
+            if (partner != null) {
+                System.out.println("  - " + partner.toString() +
+                                   " (bought together in " + coPurchases.countTogether(productId, partnerId) + " orders)");
+            }
+        }
+    }
+
+    /**
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public synchronized void displayCacheStatistics() {
+        System.out.println("\n--- Query Cache Statistics ---");
+        System.out.println(queryCache.toString());
+        if (lazyReviews != null) {
+            System.out.println("Lazy reviews: " + lazyReviews.getLoadedCount() + " products loaded, "
+                               + lazyReviews.getCacheHits() + " hits, " + lazyReviews.getCacheLoads() + " loads");
+        }
+    }
+
+    /**
+     * Time Complexity: O(log C + log n + k) (n = the customer's orders, k = matches)
+     * Space Complexity: O(k)
+     */
+    public synchronized void displayCustomerOrdersBetweenDates(int customerId, Date startDate, Date endDate) {
+        List<Orders> orders = findCustomerOrdersBetweenDates(customerId, startDate, endDate);
+        for (Orders order : orders) {
+            System.out.println(order.toString());
+        }
+
+        if (orders.isEmpty()) {
+            System.out.println("No orders found between " + startDate + " and " + endDate + ".");
+        } else {
+            System.out.println("Found " + orders.size() + " orders.");
+        }
+    }
+
+    /**
+     * Orders of one customer dated within [startDate, endDate], oldest first.
+     * Time Complexity: O(log C + log n + k)
+     * Space Complexity: O(k)
+     */
+    public synchronized List<Orders> findCustomerOrdersBetweenDates(int customerId, Date startDate, Date endDate) {
+        return customerOrders.between(customerId, startDate, endDate);
+    }
+
+    /**
+     * Time Complexity: O(log C + log n + k)
+     * Space Complexity: O(k)
+     */
+    public synchronized void displayLatestCustomerOrders(int customerId, int n) {
+        List<Orders> orders = findLatestCustomerOrders(customerId, n);
+        for (Orders order : orders) {
+            System.out.println(order.toString());
+        }
+
+        if (orders.isEmpty()) {
+            System.out.println("This customer has no orders.");
+        }
+    }
+
+    /**
+     * The n most recent orders of one customer, newest first.
+     * Time Complexity: O(log C + log n + k)
+     * Space Complexity: O(k)
+     */
+    public synchronized List<Orders> findLatestCustomerOrders(int customerId, int n) {
+        return customerOrders.latest(customerId, n);
+    }
+
+    /**
+     * Prints revenue, order count and average basket for orders dated
+     * within [startDate, endDate]: those in one status, or all but cancelled ones when status is null.
+     * Time Complexity: O(log D) (D = days covered by the rollups)
+     * Space Complexity: O(1)
+     */
+    public synchronized void displayRevenueBetweenDates(Date startDate, Date endDate, Orders.OrderStatus status) {
+        long cents = revenue.revenueCentsBetween(startDate, endDate, status);
+        long count = revenue.orderCountBetween(startDate, endDate, status);
+
+        System.out.println("\nOrders from " + startDate + " to " + endDate +
+                           (status != null ? " with status " + status : " (excluding cancelled)") + ":");
+        System.out.println("  Revenue:        $" + String.format("%.2f", cents / 100.0));
+        System.out.println("  Orders:         " + count);
+        System.out.println("  Average basket: $" +
+                           String.format("%.2f", revenue.averageBasketBetween(startDate, endDate, status)));
+    }
+
+    /**
+     * Top products by units sold in the last windowDays (7 or 30) days,
+     * counted back from the latest order date.
+     * Time Complexity: O(N log P) (N = list length)
+     * Space Complexity: O(N)
+     */
+    public synchronized void displayTrendingProducts(int windowDays) {
+        TrendingProducts trending = (windowDays == 7) ? trending7 : trending30;
+        int[] top = trending.topProducts();
+        if (top.length == 0) {
+            System.out.println("No orders in this window yet.");
+            return;
+        }
+
+        System.out.println("Top sellers in the " + windowDays + " days up to " +
+                           LocalDate.ofEpochDay(trending.getLatestDay()) + ":");
+        int rank = 1;
+        for (int productId : top) {
+            Products product = findProductById(productId);
+            String name = (product != null) ? product.toString() : "Product " + productId + " (removed)";
+            System.out.println(rank++ + ". " + name + " - " + trending.unitsSold(productId) + " units");
+        }
+    }
+
+    // ===================================================================
+    // 5. ORDER PLACEMENT
+    // ===================================================================
+
+    /**
+     * Queues a new order for the placement pipeline. A single writer thread takes
+     * queued orders off a bounded ring buffer in batches, validates them and links
+     * them into every index under one lock acquisition per batch. Blocks only
+     * while the buffer is full.
+     * Time Complexity: O(1) for the caller (amortized O(log O + m^2 log P) on the writer)
+     * Space Complexity: O(m)
+     * @return A future completed with the placed order, or failed with
+     *         IllegalArgumentException if the customer or a product does not exist.
+     */
+    public CompletableFuture<Orders> placeOrder(int customerId, int... productIds) throws InterruptedException {
+        OrderPipeline pipeline;
+        synchronized (this) {
+            if (handedOver) throw new IllegalStateException("Service was handed over to a concurrent facade.");
+            if (orderPipeline == null) {
+                orderPipeline = new OrderPipeline(this::placeOrderBatch, 8192, 256);
+            }
+            pipeline = orderPipeline;
+        }
+        return pipeline.submit(customerId, productIds);
+    }
+
+    /**
+     * Places the orders already queued, then stops the writer thread. The service
+     * lock is released before waiting, since the writer needs it to flush its batches.
+     * Time Complexity: O(Q * (log O + m^2 log P)) (Q = queued orders)
+     * Space Complexity: O(1)
+     */
+    public void shutdownOrderPipeline() {
+        OrderPipeline pipeline;
+        synchronized (this) {
+            pipeline = orderPipeline;
+            orderPipeline = null;
+        }
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    /**
+     * Writer-side handler for one batch of placement requests: validates each
+     * request via findCustomerById/findProductById and links the valid ones.
+     * Time Complexity: O(b * (log O + log C + m^2 log P)) (b = batch size)
+     * Space Complexity: O(b * m)
+     */
+    private synchronized void placeOrderBatch(List<OrderPipeline.Request> batch) {
+        String today = LocalDate.now().toString();
+        boolean placedAny = false;
+
+        for (OrderPipeline.Request request : batch) {
+            Customers customer = findCustomerById(request.getCustomerId());
+            if (customer == null) {
+                request.fail(new IllegalArgumentException("Customer " + request.getCustomerId() + " not found."));
+                continue;
+            }
+
+            int[] productIds = request.getProductIds();
+            Products[] products = new Products[productIds.length];
+            long totalCents = 0;
+            boolean valid = productIds.length > 0;
+            for (int i = 0; i < productIds.length && valid; i++) {
+                products[i] = findProductById(productIds[i]);
+                if (products[i] == null) {
+                    request.fail(new IllegalArgumentException("Product " + productIds[i] + " not found."));
+                    valid = false;
+                } else {
+                    totalCents += Math.round(products[i].getPrice() * 100);
+                }
+            }
+            if (!valid) {
+                if (productIds.length == 0) request.fail(new IllegalArgumentException("An order needs at least one product."));
+                continue;
+            }
+
+            int orderId = nextOrderId;
+            Orders order = new Orders(orderId, request.getCustomerId(), today);
+            order.updateStatus(Orders.OrderStatus.PENDING);
+            for (Products product : products) {
+                order.addProduct(product);
+            }
+            indexOrder(order, customer, orderId, request.getCustomerId(), productIds.clone(),
+                       Orders.OrderStatus.PENDING, totalCents, true);
+            request.complete(order);
+            placedAny = true;
+        }
+
+        if (placedAny) {
+            queryCache.bump(QueryCache.ORDERS);
+        }
+    }
+
+    // ===================================================================
+    // 6. SHARD SUPPORT (answers for ShardServer / ShardCoordinator)
+    // ===================================================================
+
+    /**
+     * The shard that owns a customer, their orders and their reviews.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public static int shardOf(int customerId, int shardCount) {
+        return Math.floorMod(Integer.hashCode(customerId), shardCount);
+    }
+
+    /**
+     * Rating sum and count of the reviews held here, per product:
+     * one "productId sum count" line per reviewed product, in productId order.
+     * Time Complexity: O(P + R)
+     * Space Complexity: O(P)
+     */
+    public synchronized List<String> shardRatingTotals() {
+        List<String> lines = new ArrayList<>();
+        allProducts.resetCurrent();
+        while (allProducts.hasNext()) {
+            AVLNode<Integer, Products> node = allProducts.getNext();
+            long sum = 0;
+            int count = 0;
+            if (lazyReviews != null) {
+                sum = lazyReviews.ratingSum(node.getKey());
+                count = lazyReviews.reviewCount(node.getKey());
+            } else {
+                for (Reviews rev : node.getData().getReviews().inOrderTraversal()) {
+                    sum += rev.getRating();
+                    count++;
+                }
+            }
+            if (count > 0) {
+                lines.add(node.getKey() + " " + sum + " " + count);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Orders held here dated within [startDate, endDate], in orderId order,
+     * as "orderId<TAB>order" lines so a coordinator can merge shards in order.
+     * Time Complexity: O(O)
+     * Space Complexity: O(k)
+     */
+    public synchronized List<String> shardOrdersBetweenDates(Date startDate, Date endDate) {
+        List<String> lines = new ArrayList<>();
+        allOrders.resetCurrent();
+        while (allOrders.hasNext()) {
+            AVLNode<Integer, Orders> node = allOrders.getNext();
+            Date orderDate = node.getData().getOrderDate();
+            if (orderDate.compareTo(startDate) >= 0 && orderDate.compareTo(endDate) <= 0) {
+                lines.add(node.getKey() + "\t" + node.getData().toString());
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Products the customer has reviewed, as "productId<TAB>name" lines.
+     * Only meaningful on the customer's own shard; fails if the customer is not held here.
+     * Time Complexity: O(P * R)
+     * Space Complexity: O(P)
+     */
+    public synchronized List<String> shardProductsReviewedBy(int customerId) {
+        if (findCustomerById(customerId) == null) {
+            throw new IllegalArgumentException("Customer " + customerId + " not found.");
+        }
+        List<String> lines = new ArrayList<>();
+        allProducts.resetCurrent();
+        while (allProducts.hasNext()) {
+            AVLNode<Integer, Products> node = allProducts.getNext();
+            for (Reviews rev : reviewsOf(node.getKey(), node.getData()).inOrderTraversal()) {
+                if (rev.getCustomerId() == customerId) {
+                    lines.add(node.getKey() + "\t" + node.getData().getName());
+                    break;
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Customers held here sorted by name, as "name<TAB>customer" lines.
+     * Time Complexity: O(C log C)
+     * Space Complexity: O(C)
+     */
+    public synchronized List<String> shardCustomersSortedByName() {
+        List<String> lines = new ArrayList<>();
+        for (Customers c : findCustomersSortedByName()) {
+            lines.add(c.getName() + "\t" + c.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * Catalog lines for the given product ids (the catalog is on every shard).
+     * Time Complexity: O(k log P)
+     * Space Complexity: O(k)
+     */
+    public synchronized List<String> shardDescribeProducts(int[] productIds) {
+        List<String> lines = new ArrayList<>();
+        for (int productId : productIds) {
+            Products product = findProductById(productId);
+            lines.add(product != null ? product.toString() : "Product " + productId);
+        }
+        return lines;
+    }
+
+    // ===================================================================
+    // 7. CANCELLATIONS & REMOVALS
+    // ===================================================================
+
+    /**
+     * Cancels an order: marks it CANCELLED, takes its product pairs out of the
+     * co-purchase matrix, its units out of the trending windows and moves its
+     * revenue to the CANCELLED rollup. The order stays in the master list and
+     * the customer's order index as history, the same way rows loaded with
+     * status Cancelled are kept.
+     * Time Complexity: O(log O + m^2 log P + m * N) (m = products in the order, N = trending list size)
+     * Space Complexity: O(log O) (recursion stack)
+     * @return false if no such order exists or it is already cancelled.
+     */
+    public synchronized boolean cancelOrder(int orderId) {
+        Orders order = allOrders.search(orderId);
+        if (order == null) return false;
+        int[] basket = activeBaskets.delete(orderId);
+        if (basket == null) return false;
+
+        order.updateStatus(Orders.OrderStatus.CANCELLED);
+        coPurchases.removeOrder(orderId);
+        trending7.removeOrder(order.getOrderDate(), basket);
+        trending30.removeOrder(order.getOrderDate(), basket);
+        revenue.updateStatus(orderId, Orders.OrderStatus.CANCELLED);
+        queryCache.bump(QueryCache.ORDERS);
+        return true;
+    }
+
+    /**
+     * Removes a product from the catalog. Its reviews, and with them its rating,
+     * go with it; its row and column are dropped from the co-purchase matrix and
+     * it leaves the trending windows. Orders that already contain it are left
+     * untouched as history.
+     * Time Complexity: O(log P + d log P + W) (d = products co-purchased with it, W = window days)
+     * Space Complexity: O(log P) (recursion stack)
+     * @return false if no such product exists.
+     */
+    public synchronized boolean removeProduct(int productId) {
+        Products product = allProducts.delete(productId);
+        if (product == null) return false;
+
+        coPurchases.removeProduct(productId);
+        trending7.removeProduct(productId);
+        trending30.removeProduct(productId);
+        if (lazyReviews != null) lazyReviews.removeProduct(productId);
+        queryCache.bump(QueryCache.PRODUCTS | QueryCache.REVIEWS);
+        return true;
+    }
+
+    // ===================================================================
+    // 8. CONCURRENT FACADE SUPPORT
+    // ===================================================================
+
+    /**
+     * Gives the master lists to ConcurrentECommerceService.fromService(). The
+     * follower and the order pipeline write them under this service's lock, not
+     * the facade's, so both must be stopped first and can no longer be started.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     * @throws IllegalStateException if following or the order pipeline is still running.
+     */
+    synchronized void handOver() {
+        if (tailFollower.isRunning() || orderPipeline != null) {
+            throw new IllegalStateException("Call stopFollowing() and shutdownOrderPipeline() before handing the service over.");
+        }
+        handedOver = true;
+    }
+
+    /**
+     * Master lists handed over to ConcurrentECommerceService.fromService().
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    synchronized AVL<Integer, Customers> customerTree() {
+        return allCustomers;
+    }
+
+    synchronized AVL<Integer, Products> productTree() {
+        if (lazyReviews != null) {
+            throw new IllegalStateException("Products do not hold their reviews in lazy review mode.");
+        }
+        return allProducts;
+    }
+
+    synchronized AVL<Integer, Orders> orderTree() {
+        return allOrders;
+    }
+
+    synchronized int peekNextOrderId() {
+        return nextOrderId;
+    }
+
+    /**
+     * Running top-K of products by average rating, used as a mutable reduction:
+     * each fork-join leaf offers its products and partial results are merged.
+     * Keeps the earlier product on ties, like the original single pass.
+     */
+    static class TopRated {
+        private final Products[] products;
+        private final double[] ratings;
+        private int count;
+
+        TopRated(int k) {
+            this.products = new Products[k];
+            this.ratings = new double[k];
+        }
+
+        /**
+         * Time Complexity: O(k)
+         * Space Complexity: O(1)
+         */
+        void offer(Products p, double pRating) {
+            // Skip products with no reviews
+            if (pRating == 0.0) {
+                return;
+            }
+
+            int pos = count;
+            while (pos > 0 && pRating > ratings[pos - 1]) {
+                pos--;
+            }
+            if (pos >= products.length) {
+                return;
+            }
+
+            // Shift down
+            int last = Math.min(count, products.length - 1);
+            for (int i = last; i > pos; i--) {
+                products[i] = products[i - 1];
+                ratings[i] = ratings[i - 1];
+            }
+            products[pos] = p;
+            ratings[pos] = pRating;
+            if (count < products.length) count++;
+        }
+
+        /**
+         * Merges the top-K of a later (right-hand) range into this one.
+         * Time Complexity: O(k^2)
+         * Space Complexity: O(1)
+         */
+        void merge(TopRated other) {
+            for (int i = 0; i < other.count; i++) {
+                offer(other.products[i], other.ratings[i]);
+            }
+        }
+
+        List<Products> toList() {
+            List<Products> result = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                result.add(products[i]);
+            }
+            return Collections.unmodifiableList(result);
+        }
+    }
 }
@@ -0,0 +1,181 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Allocation-free parsing of CSV fields in place.
+ * Every method reads a [from, to) range of a line (a CharSequence, or a
+ * ByteBuffer such as a memory-mapped file) instead of a substring, so loading
+ * a row creates no intermediate String or array objects.
+ * Malformed fields throw NumberFormatException, like Integer.parseInt.
+ *
+ * Time Complexity: O(field length) for every method
+ * Space Complexity: O(1)
+ */
+public final class FieldParser {
+
+    private FieldParser() {
+    }
+
+    // ===================================================================
+    // Field boundaries
+    // ===================================================================
+
+    /**
+     * End of the field starting at from: the index of the next comma, or the
+     * end of the line. A from past the end of the line gives the line length.
+     */
+    public static int fieldEnd(CharSequence line, int from) {
+        int length = line.length();
+        while (from < length && line.charAt(from) != ',') from++;
+        return Math.min(from, length);
+    }
+
+    /**
+     * Same as fieldEnd(CharSequence, int), for a line that ends at to.
+     */
+    public static int fieldEnd(ByteBuffer line, int from, int to) {
+        while (from < to && line.get(from) != ',') from++;
+        return Math.min(from, to);
+    }
+
+    // ===================================================================
+    // Integers
+    // ===================================================================
+
+    /**
+     * Parses a decimal int with an optional leading minus sign.
+     */
+    public static int parseInt(CharSequence s, int from, int to) {
+        boolean negative = from < to && s.charAt(from) == '-';
+        int i = negative ? from + 1 : from;
+        if (i >= to) throw malformed(s, from, to);
+
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) throw malformed(s, from, to);
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) throw malformed(s, from, to);
+        }
+        return toInt(negative ? -value : value, s, from, to);
+    }
+
+    /**
+     * Same as parseInt(CharSequence, int, int), reading ASCII bytes.
+     */
+    public static int parseInt(ByteBuffer s, int from, int to) {
+        boolean negative = from < to && s.get(from) == '-';
+        int i = negative ? from + 1 : from;
+        if (i >= to) throw malformed(s, from, to);
+
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = s.get(i) - '0';
+            if (digit < 0 || digit > 9) throw malformed(s, from, to);
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) throw malformed(s, from, to);
+        }
+        return toInt(negative ? -value : value, s, from, to);
+    }
+
+    // ===================================================================
+    // Fixed-point prices
+    // ===================================================================
+
+    /**
+     * Parses a decimal price ("1499.99", "20", "-3.5") into whole cents.
+     * Digits past the second decimal place are rounded half up, which gives
+     * the same cents as Math.round(Double.parseDouble(s) * 100) for prices
+     * written to the cent.
+     */
+    public static long parseCents(CharSequence s, int from, int to) {
+        boolean negative = from < to && s.charAt(from) == '-';
+        int i = negative ? from + 1 : from;
+
+        long cents = 0;
+        int decimals = -1; // -1 until the decimal point
+        boolean roundUp = false;
+        boolean anyDigit = false;
+        for (; i < to; i++) {
+            char c = s.charAt(i);
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+                continue;
+            }
+            int digit = c - '0';
+            if (digit < 0 || digit > 9) throw malformed(s, from, to);
+            anyDigit = true;
+            if (decimals < 2) {
+                cents = cents * 10 + digit;
+                if (decimals >= 0) decimals++;
+                if (cents > Long.MAX_VALUE / 100) throw malformed(s, from, to);
+            } else if (decimals == 2) {
+                roundUp = digit >= 5;
+                decimals++;
+            }
+        }
+        if (!anyDigit) throw malformed(s, from, to);
+        return finishCents(cents, decimals, roundUp, negative);
+    }
+
+    // ===================================================================
+    // ISO dates
+    // ===================================================================
+
+    /**
+     * Returned by parsePackedDate() when the range is not a valid date; no packed date is negative.
+     */
+    public static final int INVALID_DATE = -1;
+
+    /**
+     * Parses "YYYY-MM-DD" (fields may be written without zero padding) into
+     * Date's packed form, an int that orders like the date. Date.parse() and
+     * Date.packedToEpochDay() build on it when an object or a day number is needed.
+     * @return INVALID_DATE if the range is not three '-' separated fields or a field is out of range.
+     * @throws NumberFormatException if a field is not a number.
+     */
+    public static int parsePackedDate(CharSequence s, int from, int to) {
+        int dash1 = -1;
+        int dash2 = -1;
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) != '-') continue;
+            if (dash1 < 0) dash1 = i;
+            else if (dash2 < 0) dash2 = i;
+            else return INVALID_DATE;
+        }
+        if (dash2 < 0) return INVALID_DATE;
+
+        int year = parseInt(s, from, dash1);
+        int month = parseInt(s, dash1 + 1, dash2);
+        int day = parseInt(s, dash2 + 1, to);
+        return Date.isValid(year, month, day) ? Date.pack(year, month, day) : INVALID_DATE;
+    }
+
+    // ===================================================================
+    // Helpers
+    // ===================================================================
+
+    private static long finishCents(long cents, int decimals, boolean roundUp, boolean negative) {
+        // Scale "12" or "12.5" up to cents
+        if (decimals < 1) cents *= 100;
+        else if (decimals == 1) cents *= 10;
+        if (roundUp) cents++;
+        return negative ? -cents : cents;
+    }
+
+    private static int toInt(long value, Object s, int from, int to) {
+        if (value > Integer.MAX_VALUE) throw malformed(s, from, to);
+        return (int) value;
+    }
+
+    // Only reached on bad input, so building the message may allocate
+    private static NumberFormatException malformed(Object s, int from, int to) {
+        StringBuilder field = new StringBuilder();
+        if (s instanceof CharSequence) {
+            field.append((CharSequence) s, from, Math.max(from, to));
+        } else {
+            ByteBuffer bytes = (ByteBuffer) s;
+            for (int i = from; i < to; i++) field.append((char) (bytes.get(i) & 0xFF));
+        }
+        return new NumberFormatException("For input string: \"" + field + "\"");
+    }
+}
@@ -0,0 +1,350 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * On-demand review loading for reviews.csv.
+ * Indexing keeps only each product's rating sum, review count and the byte
+ * offsets of its rows in the file. A product's Reviews objects are parsed from
+ * those offsets the first time they are asked for, and kept in a bounded LRU
+ * cache of loaded review sets.
+ * Rows are read with positional FileChannel reads rather than a memory mapping:
+ * a mapping faults the JVM when the file shrinks under it, a read just comes up short.
+ * If the file shrinks below what was indexed, or is replaced by another file,
+ * the index and the cache are dropped and the file is indexed again.
+ * Offsets are ints, so the file may be at most 2 GB.
+ *
+ * Time Complexity: O(1) for initialization
+ * Space Complexity: O(P + R) ints/longs plus O(cacheCapacity) loaded review sets
+ */
+public class LazyReviewIndex {
+    private static final int READ_CHUNK = 1 << 16;
+
+    /**
+     * Decides which rows belong in the index (e.g. known products on this shard).
+     */
+    public interface RowFilter {
+        boolean accept(int productId, int customerId);
+    }
+
+    private final Path file;
+    private final RowFilter filter;
+    private final int cacheCapacity;
+
+    // File identity (inode) when indexing started, to notice a replaced file
+    private Object fileKey;
+    private long indexedBytes;
+    private AVL<Integer, ProductEntry> entries;
+    // Access-ordered, so iteration starts at the least recently used review set
+    private final LinkedHashMap<Integer, AVL<Integer, Reviews>> loaded;
+
+    private long cacheHits;
+    private long cacheLoads;
+
+    /**
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public LazyReviewIndex(String filePath, int cacheCapacity, RowFilter filter) {
+        if (cacheCapacity <= 0) throw new IllegalArgumentException("cacheCapacity must be positive");
+        this.file = Paths.get(filePath);
+        this.cacheCapacity = cacheCapacity;
+        this.filter = filter;
+        this.entries = new AVL<>();
+        this.loaded = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Indexes the whole file from scratch. Like CsvTailFollower.readRows(), a last
+     * row without a newline is only indexed if the file did not grow meanwhile.
+     * Time Complexity: O(B + R log P) (B = file bytes)
+     * Space Complexity: O(P + R)
+     * @return The number of rows indexed.
+     */
+    public synchronized int build() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return rebuild(channel);
+        }
+    }
+
+    /**
+     * Indexes the rows up to end, a row boundary the caller has already settled
+     * on (the offset CsvTailFollower reached). If the file got shorter than what
+     * was indexed, or was replaced, the index and the cache are rebuilt instead.
+     * Time Complexity: O(B' + R' log P) (B', R' = new bytes and rows; the whole file after a rebuild)
+     * Space Complexity: O(R')
+     * @return The number of rows indexed, or -1 if the index was rebuilt.
+     */
+    public synchronized int catchUp(long end) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (end < indexedBytes || isStale(channel)) {
+                rebuild(channel);
+                return -1;
+            }
+            return indexRows(channel, Math.min(end, channel.size()), true);
+        }
+    }
+
+    /**
+     * Time Complexity: O(log P)
+     * Space Complexity: O(1)
+     */
+    public synchronized double averageRating(int productId) {
+        ProductEntry entry = entries.search(productId);
+        return (entry == null || entry.count == 0) ? 0.0 : (double) entry.ratingSum / entry.count;
+    }
+
+    /**
+     * Time Complexity: O(log P)
+     * Space Complexity: O(1)
+     */
+    public synchronized long ratingSum(int productId) {
+        ProductEntry entry = entries.search(productId);
+        return (entry == null) ? 0 : entry.ratingSum;
+    }
+
+    /**
+     * Time Complexity: O(log P)
+     * Space Complexity: O(1)
+     */
+    public synchronized int reviewCount(int productId) {
+        ProductEntry entry = entries.search(productId);
+        return (entry == null) ? 0 : entry.count;
+    }
+
+    /**
+     * The product's reviews keyed by reviewId, parsed from the file on first use.
+     * The returned tree is shared with the cache and must not be modified.
+     * If the file cannot be read, an empty tree is returned and nothing is cached.
+     * Time Complexity: O(1) on a cache hit, O(r log r + r * L) on a load
+     *                  (r = the product's reviews, L = row length)
+     * Space Complexity: O(r)
+     */
+    public synchronized AVL<Integer, Reviews> reviewsFor(int productId) {
+        AVL<Integer, Reviews> reviews = loaded.get(productId);
+        if (reviews != null) {
+            cacheHits++;
+            return reviews;
+        }
+
+        cacheLoads++;
+        reviews = new AVL<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The stored offsets are only meaningful for the file they were taken from
+            if (isStale(channel)) rebuild(channel);
+
+            ProductEntry entry = entries.search(productId);
+            if (entry != null) {
+                ByteBuffer row = ByteBuffer.allocate(256);
+                for (int i = 0; i < entry.offsetCount; i++) {
+                    row = readRow(channel, entry.offsets[i], row);
+                    Reviews review = parseReview(row);
+                    if (review != null) reviews.insert(review.getReviewId(), review);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not read reviews of product " + productId + ": " + e.getMessage());
+            return new AVL<>();
+        }
+
+        loaded.put(productId, reviews);
+        if (loaded.size() > cacheCapacity) {
+            Iterator<Map.Entry<Integer, AVL<Integer, Reviews>>> eldest = loaded.entrySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+        return reviews;
+    }
+
+    /**
+     * Forgets a removed product.
+     * Time Complexity: O(log P)
+     * Space Complexity: O(1)
+     */
+    public synchronized void removeProduct(int productId) {
+        entries.delete(productId);
+        loaded.remove(productId);
+    }
+
+    public synchronized long getIndexedBytes() { return indexedBytes; }
+    public synchronized int getProductCount() { return entries.getSize(); }
+    public synchronized int getLoadedCount() { return loaded.size(); }
+    public synchronized long getCacheHits() { return cacheHits; }
+    public synchronized long getCacheLoads() { return cacheLoads; }
+
+    private int rebuild(FileChannel channel) throws IOException {
+        entries = new AVL<>();
+        loaded.clear();
+        indexedBytes = 0;
+        fileKey = currentFileKey();
+
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) throw new IOException(file + " is larger than 2 GB");
+        int rows = indexRows(channel, size, false);
+        // Unterminated last row: complete only if nothing was appended while indexing
+        if (indexedBytes < size && channel.size() == size) {
+            rows += indexRows(channel, size, true);
+        }
+        return rows;
+    }
+
+    private boolean isStale(FileChannel channel) throws IOException {
+        return channel.size() < indexedBytes || !Objects.equals(fileKey, currentFileKey());
+    }
+
+    private Object currentFileKey() throws IOException {
+        return Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+    }
+
+    /**
+     * Indexes the rows in [indexedBytes, end), reading the file in chunks. A row
+     * cut off at end is indexed only if lastRowComplete; otherwise it is left for
+     * a later call. The header is skipped on the first pass.
+     */
+    private int indexRows(FileChannel channel, long end, boolean lastRowComplete) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_CHUNK);
+        long bufferStart = indexedBytes; // File offset of buffer index 0
+        boolean skipHeader = indexedBytes == 0;
+        int rows = 0;
+
+        while (bufferStart < end) {
+            int filled = buffer.position();
+            buffer.limit((int) Math.min(buffer.capacity(), end - bufferStart));
+            boolean eof = false;
+            while (buffer.hasRemaining() && !eof) {
+                eof = channel.read(buffer, bufferStart + buffer.position()) < 0;
+            }
+            int limit = buffer.position();
+            // eof: the file shrank under us; what is left of its last row is not complete
+            boolean last = eof || bufferStart + limit >= end;
+
+            int lineStart = 0;
+            for (int i = filled; i < limit; i++) {
+                if (buffer.get(i) != '\n') continue;
+                if (skipHeader) {
+                    skipHeader = false;
+                } else if (indexRow(buffer, lineStart, i, bufferStart + lineStart)) {
+                    rows++;
+                }
+                lineStart = i + 1;
+            }
+
+            if (last) {
+                if (lineStart < limit && lastRowComplete && !eof) {
+                    if (!skipHeader && indexRow(buffer, lineStart, limit, bufferStart + lineStart)) rows++;
+                    lineStart = limit;
+                }
+                indexedBytes = bufferStart + lineStart;
+                return rows;
+            }
+
+            // Carry the partial row to the front; a row longer than the buffer grows it
+            if (lineStart == 0 && limit == buffer.capacity()) {
+                buffer = ByteBuffer.wrap(Arrays.copyOf(buffer.array(), buffer.capacity() * 2));
+                buffer.position(limit);
+            } else {
+                System.arraycopy(buffer.array(), lineStart, buffer.array(), 0, limit - lineStart);
+                buffer.limit(buffer.capacity());
+                buffer.position(limit - lineStart);
+            }
+            bufferStart += lineStart;
+        }
+        indexedBytes = Math.max(indexedBytes, end);
+        return rows;
+    }
+
+    // Adds the row in buffer[lineStart, lineEnd) at file offset rowOffset; false if skipped
+    private boolean indexRow(ByteBuffer buffer, int lineStart, int lineEnd, long rowOffset) {
+        // reviewId,productId,customerId,rating,comment
+        int reviewIdEnd = FieldParser.fieldEnd(buffer, lineStart, lineEnd);
+        int productIdEnd = FieldParser.fieldEnd(buffer, reviewIdEnd + 1, lineEnd);
+        int customerIdEnd = FieldParser.fieldEnd(buffer, productIdEnd + 1, lineEnd);
+        int ratingEnd = FieldParser.fieldEnd(buffer, customerIdEnd + 1, lineEnd);
+        if (ratingEnd >= lineEnd) return false; // Skip bad data
+
+        int productId;
+        int customerId;
+        int rating;
+        try {
+            productId = FieldParser.parseInt(buffer, reviewIdEnd + 1, productIdEnd);
+            customerId = FieldParser.parseInt(buffer, productIdEnd + 1, customerIdEnd);
+            rating = FieldParser.parseInt(buffer, customerIdEnd + 1, ratingEnd);
+        } catch (NumberFormatException e) {
+            return false; // Skip bad data
+        }
+        if (!filter.accept(productId, customerId)) return false;
+
+        ProductEntry entry = entries.search(productId);
+        if (entry == null) {
+            entry = new ProductEntry();
+            entries.insert(productId, entry);
+        }
+        entry.add(rating, (int) rowOffset);
+        loaded.remove(productId); // A cached set would now be missing this review
+        return true;
+    }
+
+    // Reads the row starting at offset into row (grown if needed), flipped for reading
+    private static ByteBuffer readRow(FileChannel channel, int offset, ByteBuffer row) throws IOException {
+        row.clear();
+        while (true) {
+            int n = channel.read(row, offset + row.position());
+            for (int i = row.position() - Math.max(n, 0); i < row.position(); i++) {
+                if (row.get(i) == '\n') {
+                    row.limit(i);
+                    row.position(0);
+                    return row;
+                }
+            }
+            if (n < 0) break; // End of file: the last row has no newline
+            if (!row.hasRemaining()) {
+                ByteBuffer bigger = ByteBuffer.allocate(row.capacity() * 2);
+                row.flip();
+                bigger.put(row);
+                row = bigger;
+            }
+        }
+        row.flip();
+        return row;
+    }
+
+    private static Reviews parseReview(ByteBuffer row) {
+        int end = row.limit();
+        if (end > 0 && row.get(end - 1) == '\r') end--;
+
+        String[] parts = new String(row.array(), 0, end, StandardCharsets.UTF_8).split(",", 5);
+        if (parts.length < 5) return null;
+
+        try {
+            return new Reviews(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                               Integer.parseInt(parts[3]), parts[4].replace("\"", ""));
+        } catch (NumberFormatException e) {
+            return null; // The row changed since it was indexed
+        }
+    }
+
+    private static class ProductEntry {
+        private long ratingSum;
+        private int count;
+        private int[] offsets = new int[2];
+        private int offsetCount;
+
+        void add(int rating, int offset) {
+            ratingSum += rating;
+            count++;
+            if (offsetCount == offsets.length) offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            offsets[offsetCount++] = offset;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Asynchronous order placement with a single writer.
+ * Producers put requests into a bounded ring buffer (ArrayBlockingQueue) and
+ * get a future back. One writer thread drains the buffer in batches and hands
+ * each batch to the handler, so the non-thread-safe AVL trees only ever see
+ * one writer and the service lock is taken once per batch instead of per order.
+ * Futures are completed after the handler returns, outside the service lock.
+ *
+ * Time Complexity: O(1) for initialization
+ * Space Complexity: O(Q) (Q = ring buffer capacity)
+ */
+public class OrderPipeline {
+    private final ArrayBlockingQueue<Request> ring;
+    private final int maxBatch;
+    private final Consumer<List<Request>> batchHandler;
+    private final Thread writer;
+    private volatile boolean running;
+
+    /**
+     * Time Complexity: O(Q)
+     * Space Complexity: O(Q)
+     */
+    public OrderPipeline(Consumer<List<Request>> batchHandler, int capacity, int maxBatch) {
+        this.ring = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.batchHandler = batchHandler;
+        this.running = true;
+        this.writer = new Thread(this::drainLoop, "order-pipeline-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a request, blocking while the ring buffer is full. A request that
+     * races with shutdown() is either placed or failed, never left pending.
+     * Time Complexity: O(1) (O(Q) when it races with shutdown())
+     * Space Complexity: O(m)
+     */
+    public CompletableFuture<Orders> submit(int customerId, int[] productIds) throws InterruptedException {
+        if (!running) throw new IllegalStateException("Order pipeline is shut down.");
+        Request request = new Request(customerId, productIds.clone());
+        ring.put(request);
+        // shutdown() may have run between the check above and put(), after the
+        // writer's last drain; if the request is still queued, nobody will take it
+        if (!running && ring.remove(request)) {
+            request.future.completeExceptionally(new IllegalStateException("Order pipeline is shut down."));
+        }
+        return request.future;
+    }
+
+    /**
+     * Stops the writer once the requests already queued have been placed.
+     * Time Complexity: O(Q)
+     * Space Complexity: O(1)
+     */
+    public void shutdown() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getQueuedCount() {
+        return ring.size();
+    }
+
+    private void drainLoop() {
+        List<Request> batch = new ArrayList<>(maxBatch);
+        while (running || !ring.isEmpty()) {
+            try {
+                if (ring.isEmpty()) {
+                    batch.add(ring.take());
+                }
+            } catch (InterruptedException e) {
+                continue; // Shutdown: re-check the loop condition and flush what is left
+            }
+            ring.drainTo(batch, maxBatch - batch.size());
+            if (batch.isEmpty()) continue;
+
+            try {
+                batchHandler.accept(batch);
+            } catch (RuntimeException e) {
+                for (Request request : batch) {
+                    if (request.failure == null && request.result == null) request.failure = e;
+                }
+            }
+            for (Request request : batch) {
+                if (request.failure != null) {
+                    request.future.completeExceptionally(request.failure);
+                } else if (request.result != null) {
+                    request.future.complete(request.result);
+                } else {
+                    request.future.completeExceptionally(new IllegalStateException("Order was not processed."));
+                }
+            }
+            batch.clear();
+        }
+
+        // Anything that slipped in during shutdown is refused rather than left hanging
+        Request late;
+        while ((late = ring.poll()) != null) {
+            late.future.completeExceptionally(new IllegalStateException("Order pipeline is shut down."));
+        }
+    }
+
+    /**
+     * One queued placement. The batch handler reports the outcome through
+     * complete() or fail(); the pipeline then completes the caller's future.
+     */
+    public static class Request {
+        private final int customerId;
+        private final int[] productIds;
+        private final CompletableFuture<Orders> future;
+        private Orders result;
+        private RuntimeException failure;
+
+        Request(int customerId, int[] productIds) {
+            this.customerId = customerId;
+            this.productIds = productIds;
+            this.future = new CompletableFuture<>();
+        }
+
+        public int getCustomerId() {
+            return customerId;
+        }
+
+        public int[] getProductIds() {
+            return productIds;
+        }
+
+        public void complete(Orders order) {
+            this.result = order;
+        }
+
+        public void fail(RuntimeException reason) {
+            this.failure = reason;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Throughput and latency of placeOrder() from 1 to 64 producer threads.
+ * Each run starts from a freshly loaded service; every producer places its
+ * share of the orders for random existing customers and products, and the
+ * submit-to-completion latency of every order is recorded.
+ *
+ * Usage: java OrderPipelineBenchmark [totalOrdersPerRun]
+ */
+public class OrderPipelineBenchmark {
+    private static final int[] PRODUCER_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+    public static void main(String[] args) throws Exception {
+        int totalOrders = (args.length > 0) ? Integer.parseInt(args[0]) : 200_000;
+        int[] customerIds = readIds("customers.csv");
+        int[] productIds = readIds("prodcuts.csv");
+
+        System.out.println("Orders per run: " + totalOrders);
+        System.out.println(String.format("%9s %14s %10s %10s %10s %10s", "producers", "orders/sec",
+                                         "p50 us", "p99 us", "p99.9 us", "max us"));
+
+        // Warm-up run so the JIT has compiled the hot paths before measuring
+        run(4, totalOrders / 4, customerIds, productIds);
+
+        for (int producers : PRODUCER_COUNTS) {
+            long[] result = run(producers, totalOrders, customerIds, productIds);
+            long elapsedNanos = result[0];
+            long[] latencies = Arrays.copyOfRange(result, 1, result.length);
+            Arrays.sort(latencies);
+
+            System.out.println(String.format("%9d %14.0f %10.1f %10.1f %10.1f %10.1f", producers,
+                    latencies.length / (elapsedNanos / 1e9),
+                    percentile(latencies, 0.50) / 1e3, percentile(latencies, 0.99) / 1e3,
+                    percentile(latencies, 0.999) / 1e3, latencies[latencies.length - 1] / 1e3));
+        }
+    }
+
+    // Returns {elapsedNanos, latency_1, ..., latency_n}
+    private static long[] run(int producers, int totalOrders, int[] customerIds, int[] productIds)
+            throws InterruptedException {
+        ECommerceService service = new ECommerceService();
+        service.loadAllData();
+
+        int perProducer = totalOrders / producers;
+        long[] latencies = new long[perProducer * producers];
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(producers);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < producers; t++) {
+            final int base = t * perProducer;
+            Thread producer = new Thread(() -> {
+                Random random = new Random(base);
+                CompletableFuture<?>[] futures = new CompletableFuture<?>[perProducer];
+                try {
+                    start.await();
+                    for (int i = 0; i < perProducer; i++) {
+                        int customerId = customerIds[random.nextInt(customerIds.length)];
+                        int[] basket = new int[1 + random.nextInt(3)];
+                        for (int j = 0; j < basket.length; j++) {
+                            basket[j] = productIds[random.nextInt(productIds.length)];
+                        }
+
+                        final int slot = base + i;
+                        final long submitted = System.nanoTime();
+                        futures[i] = service.placeOrder(customerId, basket)
+                                .whenComplete((order, error) -> latencies[slot] = System.nanoTime() - submitted);
+                    }
+                    CompletableFuture.allOf(futures).join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            threads.add(producer);
+            producer.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        service.shutdownOrderPipeline();
+
+        long[] result = new long[latencies.length + 1];
+        result[0] = elapsed;
+        System.arraycopy(latencies, 0, result, 1, latencies.length);
+        return result;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    // First column of a CSV file (after its header)
+    private static int[] readIds(String filePath) throws FileNotFoundException {
+        List<Integer> ids = new ArrayList<>();
+        Scanner scanner = new Scanner(new File(filePath));
+        scanner.nextLine(); // Skip header row
+        while (scanner.hasNextLine()) {
+            String line = scanner.nextLine();
+            int comma = line.indexOf(',');
+            if (comma > 0) ids.add(Integer.parseInt(line.substring(0, comma)));
+        }
+        scanner.close();
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
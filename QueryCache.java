@@ -0,0 +1,135 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache for query results.
+ * Every collection has a version stamp that is bumped on each change. An entry
+ * remembers the stamps of the collections it was computed from and is treated
+ * as a miss (and dropped) as soon as any of them moves on, so results are never stale.
+ *
+ * Time Complexity: O(1) for initialization
+ * Space Complexity: O(M) (M = maxEntries)
+ */
+public class QueryCache {
+    // Collection flags, combined with | to describe what a query reads
+    public static final int CUSTOMERS = 1;
+    public static final int PRODUCTS = 1 << 1;
+    public static final int ORDERS = 1 << 2;
+    public static final int REVIEWS = 1 << 3;
+    private static final int COLLECTION_COUNT = 4;
+
+    private final int maxEntries;
+    private final long[] versions;
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public QueryCache(int maxEntries) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be positive");
+        this.maxEntries = maxEntries;
+        this.versions = new long[COLLECTION_COUNT];
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Marks one or more collections as changed.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public void bump(int collections) {
+        for (int i = 0; i < COLLECTION_COUNT; i++) {
+            if ((collections & (1 << i)) != 0) versions[i]++;
+        }
+    }
+
+    /**
+     * Returns the cached result for key, or null on a miss.
+     * The returned list is shared and must not be modified.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (!entry.isCurrent(versions)) {
+            entries.remove(key);
+            invalidations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return (List<T>) entry.result;
+    }
+
+    /**
+     * Stores a result computed from the given collections, evicting the
+     * least recently used entry when the cache is full.
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public void put(String key, int dependsOn, List<?> result) {
+        entries.put(key, new Entry(dependsOn, versions, result));
+        if (entries.size() > maxEntries) {
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() { return entries.size(); }
+    public int getMaxEntries() { return maxEntries; }
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getEvictions() { return evictions; }
+    public long getInvalidations() { return invalidations; }
+
+    @Override
+    public String toString() {
+        long lookups = hits + misses;
+        double hitRate = (lookups == 0) ? 0.0 : 100.0 * hits / lookups;
+        return String.format("Entries: %d/%d, Hits: %d, Misses: %d (%.1f%% hit rate), Evictions: %d, Invalidations: %d",
+                entries.size(), maxEntries, hits, misses, hitRate, evictions, invalidations);
+    }
+
+    private static class Entry {
+        private final int dependsOn;
+        private final long[] stamps;
+        private final List<?> result;
+
+        Entry(int dependsOn, long[] versions, List<?> result) {
+            this.dependsOn = dependsOn;
+            this.stamps = versions.clone();
+            this.result = result;
+        }
+
+        boolean isCurrent(long[] versions) {
+            for (int i = 0; i < COLLECTION_COUNT; i++) {
+                if ((dependsOn & (1 << i)) != 0 && stamps[i] != versions[i]) return false;
+            }
+            return true;
+        }
+    }
+}
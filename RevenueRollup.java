@@ -0,0 +1,223 @@
+/**
+ * Incremental revenue and order-count rollups by order day.
+ * One Fenwick (binary indexed) tree per order status, plus one for every
+ * order that is not cancelled (the default report), over a window of epoch days that grows on demand. Revenue is
+ * kept in cents so sums never drift.
+ *
+ * Time Complexity: O(1) for initialization
+ * Space Complexity: O(S * D + O) (S = statuses, D = days covered, O = orders)
+ */
+public class RevenueRollup {
+    private static final int INITIAL_DAYS = 1024;
+    // Widest day window kept (about 179 years); a far-off outlier date is
+    // refused instead of sizing every series' arrays to reach it
+    private static final int MAX_DAYS = 1 << 16;
+
+    // Series 0..S-1 follow Orders.OrderStatus ordinals, series S is every non-cancelled order
+    private final int allSeries;
+    private final int cancelledSeries;
+    private long[][] revenueTree;
+    private long[][] countTree;
+    private int firstDay; // epoch day stored at tree index 1
+    private int days;
+
+    // orderId -> what was recorded for it, so status changes can be moved
+    private AVL<Integer, Entry> recorded;
+
+    /**
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public RevenueRollup() {
+        this.allSeries = Orders.OrderStatus.values().length;
+        this.cancelledSeries = Orders.OrderStatus.CANCELLED.ordinal();
+        this.recorded = new AVL<>();
+    }
+
+    /**
+     * Records a new order; an already recorded orderId is replaced.
+     * Time Complexity: O(log D + log O) (amortized, the day window may grow)
+     * Space Complexity: O(1)
+     * @return false if the date is too far from the days already recorded
+     *         (the window would exceed MAX_DAYS); nothing is recorded then.
+     */
+    public boolean add(int orderId, Date orderDate, Orders.OrderStatus status, long totalCents) {
+        int day = orderDate.toEpochDay();
+        if (!canCover(day)) return false;
+
+        remove(orderId);
+        Entry entry = new Entry(day, status.ordinal(), totalCents);
+        recorded.insert(orderId, entry);
+        apply(entry, 1);
+        return true;
+    }
+
+    /**
+     * Moves an order's revenue and count to another status.
+     * Time Complexity: O(log D + log O)
+     * Space Complexity: O(1)
+     * @return false if the order was never recorded.
+     */
+    public boolean updateStatus(int orderId, Orders.OrderStatus newStatus) {
+        Entry entry = recorded.search(orderId);
+        if (entry == null) return false;
+        if (entry.status == newStatus.ordinal()) return true;
+
+        update(entry.status, entry.day, -entry.cents, -1);
+        entry.status = newStatus.ordinal();
+        update(entry.status, entry.day, entry.cents, 1);
+        return true;
+    }
+
+    /**
+     * Time Complexity: O(log D + log O)
+     * Space Complexity: O(1)
+     * @return false if the order was never recorded.
+     */
+    public boolean remove(int orderId) {
+        Entry entry = recorded.delete(orderId);
+        if (entry == null) return false;
+        apply(entry, -1);
+        return true;
+    }
+
+    /**
+     * Total revenue (in cents) of orders dated within [startDate, endDate].
+     * Time Complexity: O(log D)
+     * Space Complexity: O(1)
+     * @param status Only count orders in this status, or null for all orders except cancelled ones.
+     */
+    public long revenueCentsBetween(Date startDate, Date endDate, Orders.OrderStatus status) {
+        return rangeSum(revenueTree, series(status), startDate.toEpochDay(), endDate.toEpochDay());
+    }
+
+    /**
+     * Number of orders dated within [startDate, endDate].
+     * Time Complexity: O(log D)
+     * Space Complexity: O(1)
+     * @param status Only count orders in this status, or null for all orders except cancelled ones.
+     */
+    public long orderCountBetween(Date startDate, Date endDate, Orders.OrderStatus status) {
+        return rangeSum(countTree, series(status), startDate.toEpochDay(), endDate.toEpochDay());
+    }
+
+    /**
+     * Average order total (in currency units, not cents), or 0 when there are no orders.
+     * Time Complexity: O(log D)
+     * Space Complexity: O(1)
+     */
+    public double averageBasketBetween(Date startDate, Date endDate, Orders.OrderStatus status) {
+        long count = orderCountBetween(startDate, endDate, status);
+        if (count == 0) return 0.0;
+        return revenueCentsBetween(startDate, endDate, status) / 100.0 / count;
+    }
+
+    private int series(Orders.OrderStatus status) {
+        return (status == null) ? allSeries : status.ordinal();
+    }
+
+    private void apply(Entry entry, int sign) {
+        update(entry.status, entry.day, sign * entry.cents, sign);
+    }
+
+    // Adds to one status series and, unless the status is CANCELLED, to the all-orders series
+    private void update(int status, int day, long cents, int count) {
+        ensureCovers(day);
+        int index = day - firstDay + 1;
+        add(revenueTree[status], index, cents);
+        add(countTree[status], index, count);
+        if (status != cancelledSeries) {
+            add(revenueTree[allSeries], index, cents);
+            add(countTree[allSeries], index, count);
+        }
+    }
+
+    private long rangeSum(long[][] trees, int series, int startDay, int endDay) {
+        if (trees == null || startDay > endDay) return 0;
+        int from = Math.max(startDay, firstDay) - firstDay + 1;
+        int to = Math.min(endDay, firstDay + days - 1) - firstDay + 1;
+        if (from > to) return 0;
+        return prefix(trees[series], to) - prefix(trees[series], from - 1);
+    }
+
+    private static void add(long[] tree, int index, long delta) {
+        for (int i = index; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private static long prefix(long[] tree, int index) {
+        long sum = 0;
+        for (int i = index; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    // Whether the window can grow to include day without exceeding MAX_DAYS
+    private boolean canCover(int day) {
+        if (revenueTree == null) return true;
+        long span = (long) Math.max(firstDay + days - 1, day) - Math.min(firstDay, day) + 1;
+        return span <= MAX_DAYS;
+    }
+
+    /**
+     * Grows the day window (at least doubling it) so it includes day.
+     * Time Complexity: O(S * D) when it grows, O(1) otherwise
+     * Space Complexity: O(S * D)
+     */
+    private void ensureCovers(int day) {
+        if (revenueTree == null) {
+            firstDay = day - INITIAL_DAYS / 2;
+            days = INITIAL_DAYS;
+            revenueTree = new long[allSeries + 1][days + 1];
+            countTree = new long[allSeries + 1][days + 1];
+            return;
+        }
+        int lastDay = firstDay + days - 1;
+        if (day >= firstDay && day <= lastDay) return;
+
+        int needed = Math.max(lastDay, day) - Math.min(firstDay, day) + 1; // At most MAX_DAYS, see canCover()
+        int newDays = Math.max(Math.min(days * 2, MAX_DAYS), needed);
+        // Keep the spare room on the side the window grew towards
+        int newFirstDay = (day < firstDay) ? lastDay - newDays + 1 : firstDay;
+        int shift = firstDay - newFirstDay;
+
+        for (int s = 0; s <= allSeries; s++) {
+            revenueTree[s] = regrow(revenueTree[s], newDays, shift);
+            countTree[s] = regrow(countTree[s], newDays, shift);
+        }
+        firstDay = newFirstDay;
+        days = newDays;
+    }
+
+    // Converts a Fenwick tree back to per-day values, moves them and rebuilds, all in O(D)
+    private static long[] regrow(long[] tree, int newDays, int shift) {
+        int n = tree.length - 1;
+        for (int i = n; i >= 1; i--) {
+            int parent = i + (i & -i);
+            if (parent <= n) tree[parent] -= tree[i];
+        }
+
+        long[] grown = new long[newDays + 1];
+        System.arraycopy(tree, 1, grown, 1 + shift, n);
+
+        for (int i = 1; i <= newDays; i++) {
+            int parent = i + (i & -i);
+            if (parent <= newDays) grown[parent] += grown[i];
+        }
+        return grown;
+    }
+
+    private static class Entry {
+        private final int day;
+        private int status;
+        private final long cents;
+
+        Entry(int day, int status, long cents) {
+            this.day = day;
+            this.status = status;
+            this.cents = cents;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Query throughput and memory per node of the sharded deployment at 1, 2, 4 and 8 shards.
+ * For each shard count a fresh ShardCoordinator is started over the same data,
+ * client threads issue a random mix of the five queries for a fixed time, and
+ * every shard reports its used heap afterwards. Queries that fail (a shard
+ * error or a dropped connection) are counted apart and left out of the throughput.
+ *
+ * Usage: java ShardBenchmark [dataDir] [secondsPerRun] [clientThreads]
+ */
+public class ShardBenchmark {
+    private static final int[] SHARD_COUNTS = {1, 2, 4, 8};
+
+    public static void main(String[] args) throws Exception {
+        File dataDir = new File((args.length > 0) ? args[0] : ".");
+        int seconds = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+        int clients = (args.length > 2) ? Integer.parseInt(args[2]) : 16;
+
+        System.out.println("Data: " + dataDir.getAbsolutePath() + ", " + seconds + " s per run, " + clients + " clients");
+        System.out.println(String.format("%7s %14s %8s %18s %18s", "shards", "queries/sec", "failed",
+                                         "avg heap/node KB", "max heap/node KB"));
+
+        for (int shardCount : SHARD_COUNTS) {
+            ShardCoordinator coordinator = new ShardCoordinator(shardCount, dataDir);
+            try {
+                run(coordinator, clients, 1000, new AtomicLong()); // Warm-up
+                AtomicLong failed = new AtomicLong();
+                double throughput = run(coordinator, clients, seconds * 1000L, failed);
+
+                long[] heap = coordinator.memoryPerShard();
+                long total = 0;
+                long max = 0;
+                for (long bytes : heap) {
+                    total += bytes;
+                    max = Math.max(max, bytes);
+                }
+                System.out.println(String.format("%7d %14.0f %8d %18d %18d", shardCount, throughput, failed.get(),
+                                                 total / heap.length / 1024, max / 1024));
+            } finally {
+                coordinator.shutdown();
+            }
+        }
+    }
+
+    // Returns successful queries per second over the run; failed queries are added to failed
+    private static double run(ShardCoordinator coordinator, int clients, long millis, AtomicLong failed)
+            throws InterruptedException {
+        AtomicLong completed = new AtomicLong();
+        long deadline = System.currentTimeMillis() + millis;
+        List<Thread> threads = new ArrayList<>();
+
+        for (int c = 0; c < clients; c++) {
+            final int seed = c;
+            Thread client = new Thread(() -> {
+                Random random = new Random(seed);
+                while (System.currentTimeMillis() < deadline) {
+                    try {
+                        query(coordinator, random);
+                        completed.incrementAndGet();
+                    } catch (IOException e) {
+                        // Print only the first few so a broken run stays readable
+                        if (failed.incrementAndGet() <= 3) System.err.println("  query failed: " + e.getMessage());
+                    }
+                }
+            });
+            threads.add(client);
+            client.start();
+        }
+
+        long begin = System.nanoTime();
+        for (Thread client : threads) {
+            client.join();
+        }
+        return completed.get() / ((System.nanoTime() - begin) / 1e9);
+    }
+
+    private static void query(ShardCoordinator coordinator, Random random) throws IOException {
+        switch (random.nextInt(5)) {
+            case 0:
+                coordinator.top3ProductsByRating();
+                break;
+            case 1: {
+                int month = 1 + random.nextInt(12);
+                coordinator.ordersBetweenDates(new Date(2025, month, 1), new Date(2025, month, 28));
+                break;
+            }
+            case 2:
+                coordinator.commonProducts(201 + random.nextInt(30), 201 + random.nextInt(30));
+                break;
+            case 3:
+                coordinator.customersSortedByName();
+                break;
+            default: {
+                double min = random.nextInt(500);
+                coordinator.productsInPriceRange(min, min + 100);
+            }
+        }
+    }
+}
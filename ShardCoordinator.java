@@ -0,0 +1,478 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinator for the customer-sharded deployment.
+ * Starts N ShardServer JVMs on loopback. Each shard holds the customers whose
+ * id hashes to it (ECommerceService.shardOf), with their orders and reviews,
+ * plus the whole product catalog. The five statistics queries are answered by
+ * scatter-gather:
+ *   - top 3 by rating: per-shard rating sums/counts are merged before ranking
+ *   - orders between dates: per-shard results (in orderId order) are merged in order
+ *   - common products: each customer's reviewed products come from that customer's shard
+ *   - customers by name: per-shard sorted lists are merged
+ *   - price range: the catalog is replicated, so one shard answers (round-robin)
+ *
+ * Time Complexity: O(1) for initialization
+ * Space Complexity: O(N) (N = shards)
+ */
+public class ShardCoordinator {
+    private final List<Process> processes;
+    private final List<ShardClient> shards;
+    private final ExecutorService scatterPool;
+    private int nextCatalogShard;
+
+    /**
+     * Launches shardCount ShardServer JVMs with dataDir as their working directory
+     * and waits until each has loaded its data.
+     * Time Complexity: O(N + load time of the largest shard)
+     * Space Complexity: O(N)
+     */
+    public ShardCoordinator(int shardCount, File dataDir) throws IOException {
+        this.processes = new ArrayList<>();
+        this.shards = new ArrayList<>();
+        this.scatterPool = Executors.newFixedThreadPool(shardCount, r -> {
+            Thread t = new Thread(r, "shard-scatter");
+            t.setDaemon(true);
+            return t;
+        });
+
+        String javaBin = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        // Shards run with dataDir as working directory, so the class path must be absolute
+        StringBuilder classPath = new StringBuilder();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (classPath.length() > 0) classPath.append(File.pathSeparator);
+            classPath.append(new File(entry).getAbsolutePath());
+        }
+        for (int i = 0; i < shardCount; i++) {
+            ProcessBuilder builder = new ProcessBuilder(javaBin, "-cp", classPath.toString(), "ShardServer",
+                                                       String.valueOf(i), String.valueOf(shardCount));
+            builder.directory(dataDir);
+            builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+            processes.add(builder.start());
+        }
+        try {
+            for (Process process : processes) {
+                shards.add(new ShardClient(awaitReady(process)));
+            }
+        } catch (IOException e) {
+            shutdown();
+            throw e;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int shardCount = (args.length > 0) ? Integer.parseInt(args[0]) : 4;
+        File dataDir = new File((args.length > 1) ? args[1] : ".");
+
+        System.out.println("Starting " + shardCount + " shards...");
+        ShardCoordinator coordinator = new ShardCoordinator(shardCount, dataDir);
+        try {
+            coordinator.runMainMenu();
+        } finally {
+            coordinator.shutdown();
+        }
+    }
+
+    // ===================================================================
+    // SCATTER-GATHER QUERIES
+    // ===================================================================
+
+    /**
+     * Time Complexity: O(N * P) to merge the per-shard rating totals
+     * Space Complexity: O(P)
+     */
+    public List<String> top3ProductsByRating() throws IOException {
+        AVL<Integer, long[]> totals = mergeRatingTotals();
+
+        // Same single pass as ECommerceService: strictly better ratings displace, in productId order
+        int[] topIds = new int[3];
+        double[] topRatings = {-1.0, -1.0, -1.0};
+        int found = 0;
+        totals.resetCurrent();
+        while (totals.hasNext()) {
+            AVLNode<Integer, long[]> node = totals.getNext();
+            double rating = (double) node.getData()[0] / node.getData()[1];
+            int pos = Math.min(found, 3);
+            while (pos > 0 && rating > topRatings[pos - 1]) pos--;
+            if (pos >= 3) continue;
+            for (int i = 2; i > pos; i--) {
+                topIds[i] = topIds[i - 1];
+                topRatings[i] = topRatings[i - 1];
+            }
+            topIds[pos] = node.getKey();
+            topRatings[pos] = rating;
+            if (found < 3) found++;
+        }
+
+        if (found == 0) return new ArrayList<>();
+        StringBuilder request = new StringBuilder("DESCRIBE");
+        for (int i = 0; i < found; i++) {
+            request.append(' ').append(topIds[i]);
+        }
+        return catalogShard().request(request.toString());
+    }
+
+    /**
+     * Time Complexity: O(N * k) (k = matching orders)
+     * Space Complexity: O(k)
+     */
+    public List<String> ordersBetweenDates(Date startDate, Date endDate) throws IOException {
+        List<List<String>> parts = scatter("ORDERS " + startDate + " " + endDate);
+        return mergeSorted(parts, (a, b) -> Integer.compare(Integer.parseInt(a.substring(0, a.indexOf('\t'))),
+                                                            Integer.parseInt(b.substring(0, b.indexOf('\t')))));
+    }
+
+    /**
+     * Products rated above 4.0 overall that both customers reviewed, as
+     * "name (Rating: x.x)" lines. Each customer's reviews are read from their own shard.
+     * Time Complexity: O(P * R / N + N * P)
+     * Space Complexity: O(P)
+     */
+    public List<String> commonProducts(int custId1, int custId2) throws IOException {
+        Future<List<String>> reviewed1 = submit(shardFor(custId1), "REVIEWED " + custId1);
+        Future<List<String>> reviewed2 = submit(shardFor(custId2), "REVIEWED " + custId2);
+        AVL<Integer, long[]> totals = mergeRatingTotals();
+
+        AVL<Integer, String> secondReviewed = new AVL<>();
+        for (String line : await(reviewed2)) {
+            int tab = line.indexOf('\t');
+            secondReviewed.insert(Integer.parseInt(line.substring(0, tab)), line.substring(tab + 1));
+        }
+
+        List<String> result = new ArrayList<>();
+        for (String line : await(reviewed1)) {
+            int tab = line.indexOf('\t');
+            int productId = Integer.parseInt(line.substring(0, tab));
+            long[] total = totals.search(productId);
+            if (secondReviewed.search(productId) == null || total == null) continue;
+
+            double rating = (double) total[0] / total[1];
+            if (rating > 4.0) {
+                result.add(line.substring(tab + 1) + " (Rating: " + String.format("%.1f", rating) + ")");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Time Complexity: O(N * C)
+     * Space Complexity: O(C)
+     */
+    public List<String> customersSortedByName() throws IOException {
+        List<List<String>> parts = scatter("CUSTOMERS");
+        return mergeSorted(parts, (a, b) -> a.substring(0, a.indexOf('\t'))
+                                             .compareToIgnoreCase(b.substring(0, b.indexOf('\t'))));
+    }
+
+    /**
+     * Time Complexity: O(P) on one shard
+     * Space Complexity: O(k)
+     */
+    public List<String> productsInPriceRange(double minPrice, double maxPrice) throws IOException {
+        return catalogShard().request("PRICE " + minPrice + " " + maxPrice);
+    }
+
+    /**
+     * Used heap of every shard after a GC, in bytes.
+     * Time Complexity: O(N)
+     * Space Complexity: O(N)
+     */
+    public long[] memoryPerShard() throws IOException {
+        List<List<String>> parts = scatter("MEMORY");
+        long[] bytes = new long[parts.size()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = Long.parseLong(parts.get(i).get(0));
+        }
+        return bytes;
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Stops every shard JVM.
+     * Time Complexity: O(N)
+     * Space Complexity: O(1)
+     */
+    public void shutdown() {
+        for (ShardClient shard : shards) {
+            shard.close();
+        }
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) process.destroy();
+            } catch (InterruptedException e) {
+                process.destroy();
+                Thread.currentThread().interrupt();
+            }
+        }
+        scatterPool.shutdownNow();
+    }
+
+    // ===================================================================
+    // MENU
+    // ===================================================================
+
+    /**
+     * Time Complexity: O(1) (Interactive loop)
+     * Space Complexity: O(1)
+     */
+    public void runMainMenu() {
+        Scanner scanner = new Scanner(System.in);
+        boolean running = true;
+        System.out.println("\n--- E-Commerce Statistics Menu (" + shards.size() + " shards) ---");
+
+        while (running) {
+            System.out.println("\nPlease select an option:");
+            System.out.println("  1. Suggest Top 3 Products by Rating");
+            System.out.println("  2. Find All Orders Between Two Dates");
+            System.out.println("  3. Find Common Highly-Rated Products Between Two Customers");
+            System.out.println("  4. List All Customers Sorted Alphabetically");
+            System.out.println("  5. List All Products Within a Price Range");
+            System.out.println("  6. Show Memory Used per Shard");
+            System.out.println("  0. Exit");
+            System.out.print("Enter choice: ");
+
+            try {
+                int choice = Integer.parseInt(scanner.nextLine().trim());
+                switch (choice) {
+                    case 1: {
+                        List<String> top = top3ProductsByRating();
+                        for (int i = 0; i < 3; i++) {
+                            System.out.println((i + 1) + ". " + (i < top.size() ? top.get(i) : "N/A"));
+                        }
+                        break;
+                    }
+                    case 2: {
+                        System.out.print("Enter Start Date (YYYY-MM-DD): ");
+                        Date startDate = Date.fromString(scanner.nextLine().trim());
+                        System.out.print("Enter End Date (YYYY-MM-DD): ");
+                        Date endDate = Date.fromString(scanner.nextLine().trim());
+                        if (startDate == null || endDate == null) {
+                            System.out.println("Invalid date format.");
+                            break;
+                        }
+                        List<String> orders = ordersBetweenDates(startDate, endDate);
+                        for (String line : orders) {
+                            System.out.println(line.substring(line.indexOf('\t') + 1));
+                        }
+                        System.out.println(orders.isEmpty() ? "No orders found between " + startDate + " and " + endDate + "."
+                                                            : "Found " + orders.size() + " orders.");
+                        break;
+                    }
+                    case 3: {
+                        System.out.print("Enter first customer ID: ");
+                        int custId1 = Integer.parseInt(scanner.nextLine().trim());
+                        System.out.print("Enter second customer ID: ");
+                        int custId2 = Integer.parseInt(scanner.nextLine().trim());
+                        List<String> common = commonProducts(custId1, custId2);
+                        for (String line : common) {
+                            System.out.println("  - " + line);
+                        }
+                        if (common.isEmpty()) {
+                            System.out.println("No common products with > 4.0 rating found for these customers.");
+                        }
+                        break;
+                    }
+                    case 4:
+                        for (String line : customersSortedByName()) {
+                            System.out.println(line.substring(line.indexOf('\t') + 1));
+                        }
+                        break;
+                    case 5: {
+                        System.out.print("Enter Min Price: ");
+                        double min = Double.parseDouble(scanner.nextLine().trim());
+                        System.out.print("Enter Max Price: ");
+                        double max = Double.parseDouble(scanner.nextLine().trim());
+                        List<String> products = productsInPriceRange(min, max);
+                        for (String line : products) {
+                            System.out.println(line);
+                        }
+                        if (products.isEmpty()) {
+                            System.out.println("No products found in this price range.");
+                        }
+                        break;
+                    }
+                    case 6: {
+                        long[] bytes = memoryPerShard();
+                        for (int i = 0; i < bytes.length; i++) {
+                            System.out.println("  Shard " + i + ": " + (bytes[i] / 1024) + " KB");
+                        }
+                        break;
+                    }
+                    case 0:
+                        running = false;
+                        System.out.println("Thank you. Exiting.");
+                        break;
+                    default:
+                        System.out.println("Invalid choice. Please try again.");
+                }
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid input. Please enter a number.");
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+        scanner.close();
+    }
+
+    // ===================================================================
+    // HELPERS
+    // ===================================================================
+
+    // productId -> {ratingSum, ratingCount} over all shards
+    private AVL<Integer, long[]> mergeRatingTotals() throws IOException {
+        AVL<Integer, long[]> totals = new AVL<>();
+        for (List<String> part : scatter("RATINGS")) {
+            for (String line : part) {
+                String[] fields = line.split(" ");
+                int productId = Integer.parseInt(fields[0]);
+                long[] total = totals.search(productId);
+                if (total == null) {
+                    total = new long[2];
+                    totals.insert(productId, total);
+                }
+                total[0] += Long.parseLong(fields[1]);
+                total[1] += Long.parseLong(fields[2]);
+            }
+        }
+        return totals;
+    }
+
+    private List<List<String>> scatter(String request) throws IOException {
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (ShardClient shard : shards) {
+            futures.add(submit(shard, request));
+        }
+        List<List<String>> parts = new ArrayList<>();
+        for (Future<List<String>> future : futures) {
+            parts.add(await(future));
+        }
+        return parts;
+    }
+
+    private Future<List<String>> submit(ShardClient shard, String request) {
+        Callable<List<String>> call = () -> shard.request(request);
+        return scatterPool.submit(call);
+    }
+
+    private static List<String> await(Future<List<String>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a shard", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    // k-way merge of lists that are each already sorted by order
+    private static List<String> mergeSorted(List<List<String>> parts, Comparator<String> order) {
+        List<String> merged = new ArrayList<>();
+        int[] next = new int[parts.size()];
+        while (true) {
+            int best = -1;
+            for (int i = 0; i < parts.size(); i++) {
+                if (next[i] >= parts.get(i).size()) continue;
+                if (best < 0 || order.compare(parts.get(i).get(next[i]), parts.get(best).get(next[best])) < 0) {
+                    best = i;
+                }
+            }
+            if (best < 0) return merged;
+            merged.add(parts.get(best).get(next[best]++));
+        }
+    }
+
+    private ShardClient shardFor(int customerId) {
+        return shards.get(ECommerceService.shardOf(customerId, shards.size()));
+    }
+
+    private synchronized ShardClient catalogShard() {
+        ShardClient shard = shards.get(nextCatalogShard);
+        nextCatalogShard = (nextCatalogShard + 1) % shards.size();
+        return shard;
+    }
+
+    private static int awaitReady(Process process) throws IOException {
+        BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = out.readLine()) != null) {
+            if (line.startsWith("READY ")) {
+                // Keep draining the shard's stdout so it can never block on a full pipe
+                Thread drain = new Thread(() -> {
+                    try {
+                        while (out.readLine() != null) { }
+                    } catch (IOException e) {
+                        // Shard exited
+                    }
+                }, "shard-stdout");
+                drain.setDaemon(true);
+                drain.start();
+                return Integer.parseInt(line.substring(6).trim());
+            }
+        }
+        throw new IOException("Shard exited before it was ready.");
+    }
+
+    /**
+     * One persistent loopback connection to a shard; requests on it are serialized.
+     */
+    private static class ShardClient {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final PrintWriter out;
+
+        ShardClient(int port) throws IOException {
+            this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            this.socket.setTcpNoDelay(true);
+            this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            this.out = new PrintWriter(socket.getOutputStream(), false, StandardCharsets.UTF_8);
+        }
+
+        synchronized List<String> request(String request) throws IOException {
+            out.println(request);
+            out.flush();
+            List<String> lines = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.equals("END")) return lines;
+                if (line.startsWith("ERROR ")) throw new IOException(line.substring(6));
+                lines.add(line);
+            }
+            throw new IOException("Shard closed the connection.");
+        }
+
+        void close() {
+            try {
+                request("QUIT");
+            } catch (IOException e) {
+                // Shard already gone
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One shard of the customer-sharded deployment, run as its own JVM.
+ * Loads its slice of the data and answers line-based requests on a loopback
+ * socket. Every response is zero or more lines followed by "END" (or a single
+ * "ERROR <message>" line).
+ *
+ * Requests:
+ *   RATINGS                       productId ratingSum ratingCount (reviews held here)
+ *   ORDERS <start> <end>          orderId TAB order, in orderId order
+ *   REVIEWED <customerId>         productId TAB name
+ *   CUSTOMERS                     name TAB customer, sorted by name
+ *   PRICE <min> <max>             product
+ *   DESCRIBE <productId>...       product
+ *   MEMORY                        used heap bytes after a GC
+ *   QUIT                          stops the shard
+ *
+ * Usage: java ShardServer <shardIndex> <shardCount> [port]
+ * Prints "READY <port>" on stdout once the data is loaded.
+ */
+public class ShardServer {
+    private final ECommerceService service;
+    private final ServerSocket serverSocket;
+    private volatile boolean running;
+
+    /**
+     * Time Complexity: O(1)
+     * Space Complexity: O(1)
+     */
+    public ShardServer(ECommerceService service, int port) throws IOException {
+        this.service = service;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.running = true;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int shardIndex = Integer.parseInt(args[0]);
+        int shardCount = Integer.parseInt(args[1]);
+        int port = (args.length > 2) ? Integer.parseInt(args[2]) : 0;
+
+        ECommerceService service = new ECommerceService(shardIndex, shardCount);
+        service.loadAllData();
+
+        ShardServer server = new ShardServer(service, port);
+        System.out.println("READY " + server.getPort());
+        System.out.flush();
+        server.serve();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until QUIT; each connection gets its own thread.
+     * Time Complexity: O(1) per accepted connection
+     * Space Complexity: O(1) per connection
+     */
+    public void serve() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread handler = new Thread(() -> handle(socket), "shard-connection");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                if (running) System.err.println("Shard accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(s.getOutputStream(), false, StandardCharsets.UTF_8)) {
+            String request;
+            while ((request = in.readLine()) != null) {
+                if (request.equals("QUIT")) {
+                    out.println("END");
+                    out.flush();
+                    stop();
+                    return;
+                }
+                try {
+                    for (String line : answer(request.trim().split(" "))) {
+                        out.println(line);
+                    }
+                    out.println("END");
+                } catch (RuntimeException e) {
+                    out.println("ERROR " + e.getMessage());
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            // Coordinator went away; nothing to clean up beyond the socket
+        }
+    }
+
+    private List<String> answer(String[] parts) {
+        switch (parts[0]) {
+            case "RATINGS":
+                return service.shardRatingTotals();
+            case "ORDERS":
+                return service.shardOrdersBetweenDates(Date.fromString(parts[1]), Date.fromString(parts[2]));
+            case "REVIEWED":
+                return service.shardProductsReviewedBy(Integer.parseInt(parts[1]));
+            case "CUSTOMERS":
+                return service.shardCustomersSortedByName();
+            case "PRICE": {
+                List<String> lines = new ArrayList<>();
+                for (Products p : service.findProductsInPriceRange(Double.parseDouble(parts[1]),
+                                                                   Double.parseDouble(parts[2]))) {
+                    lines.add(p.toString());
+                }
+                return lines;
+            }
+            case "DESCRIBE": {
+                int[] ids = new int[parts.length - 1];
+                for (int i = 1; i < parts.length; i++) {
+                    ids[i - 1] = Integer.parseInt(parts[i]);
+                }
+                return service.shardDescribeProducts(ids);
+            }
+            case "MEMORY": {
+                Runtime rt = Runtime.getRuntime();
+                System.gc();
+                return List.of(String.valueOf(rt.totalMemory() - rt.freeMemory()));
+            }
+            default:
+                throw new IllegalArgumentException("Unknown request: " + parts[0]);
+        }
+    }
+
+    private void stop() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+}
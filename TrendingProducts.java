@@ -0,0 +1,207 @@
+import java.util.Arrays;
+
+/**
+ * Top-N products by units sold over a sliding window of the most recent days.
+ * Fed one order at a time; "now" is the latest order date seen. Units are kept
+ * in one bucket per day (a ring of windowDays buckets) plus a running total per
+ * product, and buckets leaving the window are subtracted from the totals.
+ * The top-N list is maintained on every increment; only expiry or a removed
+ * order can push a leader down, in which case it is rebuilt once on the next read.
+ *
+ * Time Complexity: O(1) for initialization
+ * Space Complexity: O(W * P) worst case (W = window days, P = products sold in the window)
+ */
+public class TrendingProducts {
+    private final int windowDays;
+    private final int topN;
+
+    private final CountMap[] dayBuckets;
+    private final int[] bucketDay;
+    private final CountMap totals;
+    private int latestDay;
+    private boolean started;
+
+    // Current leaders, most units first (ties: lower productId first)
+    private final int[] topIds;
+    private final int[] topUnits;
+    private int topCount;
+    private boolean topStale;
+
+    /**
+     * Time Complexity: O(W)
+     * Space Complexity: O(W + N)
+     */
+    public TrendingProducts(int windowDays, int topN) {
+        if (windowDays <= 0 || topN <= 0) throw new IllegalArgumentException("windowDays and topN must be positive");
+        this.windowDays = windowDays;
+        this.topN = topN;
+        this.dayBuckets = new CountMap[windowDays];
+        this.bucketDay = new int[windowDays];
+        for (int i = 0; i < windowDays; i++) {
+            dayBuckets[i] = new CountMap(16);
+        }
+        this.totals = new CountMap(64);
+        this.topIds = new int[topN];
+        this.topUnits = new int[topN];
+    }
+
+    /**
+     * Counts one unit per product id in the order (repeated ids are repeated units).
+     * Orders older than the window are ignored; newer orders slide the window forward.
+     * Time Complexity: O(m * N) amortized (m = products in the order), plus the
+     *                  one-off expiry of each bucket that leaves the window
+     * Space Complexity: O(m)
+     */
+    public void addOrder(Date orderDate, int[] productIds) {
+        int day = orderDate.toEpochDay();
+        if (!started) {
+            started = true;
+            latestDay = day;
+            Arrays.fill(bucketDay, Integer.MIN_VALUE);
+        } else if (day > latestDay) {
+            advanceTo(day);
+        } else if (day <= latestDay - windowDays) {
+            return; // Already outside the window
+        }
+
+        int slot = Math.floorMod(day, windowDays);
+        bucketDay[slot] = day;
+        CountMap bucket = dayBuckets[slot];
+        for (int productId : productIds) {
+            bucket.add(productId, 1);
+            totals.add(productId, 1);
+            offer(productId, totals.get(productId));
+        }
+    }
+
+    /**
+     * Takes back the units of an order counted by addOrder(), e.g. when it is cancelled.
+     * Nothing to do if its day has already left the window.
+     * Time Complexity: O(m * N) (m = products in the order)
+     * Space Complexity: O(1)
+     */
+    public void removeOrder(Date orderDate, int[] productIds) {
+        int day = orderDate.toEpochDay();
+        if (!started || day > latestDay || day <= latestDay - windowDays) return;
+
+        int slot = Math.floorMod(day, windowDays);
+        if (bucketDay[slot] != day) return;
+        CountMap bucket = dayBuckets[slot];
+        for (int productId : productIds) {
+            if (bucket.get(productId) <= 0) continue;
+            bucket.add(productId, -1);
+            totals.add(productId, -1);
+            // A leader that lost units may now rank below a product outside the list
+            if (!topStale && indexInTop(productId) >= 0) topStale = true;
+        }
+    }
+
+    /**
+     * Forgets a product that was removed from the catalogue: its units leave every
+     * day bucket and the totals, and it drops out of the leaders.
+     * Time Complexity: O(W + N)
+     * Space Complexity: O(1)
+     */
+    public void removeProduct(int productId) {
+        for (CountMap bucket : dayBuckets) {
+            bucket.remove(productId);
+        }
+        totals.remove(productId);
+        // The next product outside the list moves up, so rebuild on the next read
+        if (!topStale && indexInTop(productId) >= 0) topStale = true;
+    }
+
+    /**
+     * The current leaders, most units first.
+     * Time Complexity: O(N) (O(P log N) once after the window slid past a leader)
+     * Space Complexity: O(N)
+     */
+    public int[] topProducts() {
+        if (topStale) rebuildTop();
+        return Arrays.copyOf(topIds, topCount);
+    }
+
+    /**
+     * Units sold within the window.
+     * Time Complexity: O(1) expected
+     * Space Complexity: O(1)
+     */
+    public int unitsSold(int productId) {
+        return totals.get(productId);
+    }
+
+    public int getWindowDays() {
+        return windowDays;
+    }
+
+    /**
+     * Epoch day the window ends on (the latest order date seen), or Integer.MIN_VALUE before any order.
+     */
+    public int getLatestDay() {
+        return started ? latestDay : Integer.MIN_VALUE;
+    }
+
+    /**
+     * Moves "now" forward, expiring every bucket that falls out of the window.
+     * Time Complexity: O(min(d, W) + units expired) (d = days advanced)
+     */
+    private void advanceTo(int day) {
+        int steps = (int) Math.min((long) day - latestDay, windowDays);
+        for (int i = 1; i <= steps; i++) {
+            int slot = Math.floorMod(latestDay + i, windowDays);
+            if (bucketDay[slot] != Integer.MIN_VALUE) expire(dayBuckets[slot]);
+            bucketDay[slot] = Integer.MIN_VALUE;
+        }
+        latestDay = day;
+    }
+
+    private void expire(CountMap bucket) {
+        for (int i = 0; i < bucket.capacity(); i++) {
+            int units = bucket.valueAt(i);
+            if (units == 0) continue;
+            long productId = bucket.keyAt(i);
+            totals.add(productId, -units);
+            if (!topStale && indexInTop((int) productId) >= 0) topStale = true;
+        }
+        bucket.clear();
+    }
+
+    // Keeps the leader arrays ordered after productId's total rose to units
+    private void offer(int productId, int units) {
+        if (topStale) return; // Rebuilt from the totals on the next read
+
+        int pos = indexInTop(productId);
+        if (pos < 0) {
+            if (topCount == topN && !ranksAbove(productId, units, topIds[topN - 1], topUnits[topN - 1])) return;
+            pos = (topCount < topN) ? topCount++ : topN - 1;
+        }
+        // Bubble up
+        while (pos > 0 && ranksAbove(productId, units, topIds[pos - 1], topUnits[pos - 1])) {
+            topIds[pos] = topIds[pos - 1];
+            topUnits[pos] = topUnits[pos - 1];
+            pos--;
+        }
+        topIds[pos] = productId;
+        topUnits[pos] = units;
+    }
+
+    private void rebuildTop() {
+        topCount = 0;
+        topStale = false;
+        for (int i = 0; i < totals.capacity(); i++) {
+            int units = totals.valueAt(i);
+            if (units > 0) offer((int) totals.keyAt(i), units);
+        }
+    }
+
+    private int indexInTop(int productId) {
+        for (int i = 0; i < topCount; i++) {
+            if (topIds[i] == productId) return i;
+        }
+        return -1;
+    }
+
+    private static boolean ranksAbove(int idA, int unitsA, int idB, int unitsB) {
+        return unitsA > unitsB || (unitsA == unitsB && idA < idB);
+    }
+}